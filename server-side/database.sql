@@ -423,6 +423,85 @@ INSERT INTO `users` (`username`, `password`, `enabled`, `id`, `role`, `extension
 	('ivailo95123', '$2a$04$6w6FIjuQUBeCyejL/3uOjeDuLehjai0Uez2jeUNBEOxB2rB/5fipa', 1, 38, 'ROLE_USER', 0, 0);
 /*!40000 ALTER TABLE `users` ENABLE KEYS */;
 
+-- Schema changes applied on top of the dump above, oldest first.
+
+-- Low-quality image placeholders
+ALTER TABLE `files` ADD COLUMN IF NOT EXISTS `placeholder` varchar(2048) DEFAULT NULL;
+
+-- Rating aggregates kept as sums and counts
+ALTER TABLE `extensions` ADD COLUMN IF NOT EXISTS `rating_sum` bigint(20) NOT NULL DEFAULT 0;
+ALTER TABLE `users` ADD COLUMN IF NOT EXISTS `rating_sum` bigint(20) NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS `times_rated` int(11) NOT NULL DEFAULT 0;
+UPDATE `extensions` SET `rating_sum` = ROUND(`rating` * `times_rated`);
+UPDATE `users` u SET
+  `rating_sum` = (SELECT COALESCE(SUM(`rating_sum`), 0) FROM `extensions` WHERE `owner` = u.`id`),
+  `times_rated` = (SELECT COALESCE(SUM(`times_rated`), 0) FROM `extensions` WHERE `owner` = u.`id`);
+
+-- Per-extension rating histogram (replaces extensions.rating_sum)
+ALTER TABLE `extensions` ADD COLUMN IF NOT EXISTS `stars_1` int(11) NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS `stars_2` int(11) NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS `stars_3` int(11) NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS `stars_4` int(11) NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS `stars_5` int(11) NOT NULL DEFAULT 0;
+UPDATE `extensions` e SET
+  `stars_1` = (SELECT COUNT(*) FROM `ratings` r WHERE r.`extension` = e.`id` AND r.`rating` = 1),
+  `stars_2` = (SELECT COUNT(*) FROM `ratings` r WHERE r.`extension` = e.`id` AND r.`rating` = 2),
+  `stars_3` = (SELECT COUNT(*) FROM `ratings` r WHERE r.`extension` = e.`id` AND r.`rating` = 3),
+  `stars_4` = (SELECT COUNT(*) FROM `ratings` r WHERE r.`extension` = e.`id` AND r.`rating` = 4),
+  `stars_5` = (SELECT COUNT(*) FROM `ratings` r WHERE r.`extension` = e.`id` AND r.`rating` = 5);
+ALTER TABLE `extensions` DROP COLUMN IF EXISTS `rating_sum`;
+
+-- Bayesian rating score (defaults rating.priorMean = 3, rating.priorWeight = 10)
+ALTER TABLE `extensions` ADD COLUMN IF NOT EXISTS `score` double NOT NULL DEFAULT 0;
+CREATE INDEX IF NOT EXISTS `extensions_score_idx` ON `extensions` (`pending`, `score`);
+UPDATE `extensions` SET `score` = (10 * 3 + `stars_1` + 2 * `stars_2` + 3 * `stars_3` + 4 * `stars_4` + 5 * `stars_5`)
+  / (10 + `times_rated`) WHERE `times_rated` > 0;
+
+-- Optimistic locking versions
+ALTER TABLE `extensions` ADD COLUMN IF NOT EXISTS `lock_version` bigint(20) NOT NULL DEFAULT 0;
+ALTER TABLE `users` ADD COLUMN IF NOT EXISTS `lock_version` bigint(20) NOT NULL DEFAULT 0;
+ALTER TABLE `files` ADD COLUMN IF NOT EXISTS `lock_version` bigint(20) NOT NULL DEFAULT 0;
+
+-- GitHub stars and forks
+ALTER TABLE `github` ADD COLUMN IF NOT EXISTS `stars` int(11) NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS `forks` int(11) NOT NULL DEFAULT 0;
+
+-- GitHub refresh scheduling
+ALTER TABLE `github` ADD COLUMN IF NOT EXISTS `fail_count` int(11) NOT NULL DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS `next_refresh` datetime DEFAULT NULL;
+
+-- Lookup of GitHub repositories by owner and name
+CREATE INDEX IF NOT EXISTS `github_user_repo_idx` ON `github` (`user`, `repo`);
+
+-- GitHub stats history, stored as delta-encoded segments per resolution
+CREATE TABLE IF NOT EXISTS `github_history` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `github_id` bigint(20) NOT NULL,
+  `resolution` varchar(16) NOT NULL,
+  `start_time` bigint(20) NOT NULL,
+  `count` int(11) NOT NULL DEFAULT 0,
+  `last_time` bigint(20) NOT NULL DEFAULT 0,
+  `last_pull_requests` int(11) NOT NULL DEFAULT 0,
+  `last_open_issues` int(11) NOT NULL DEFAULT 0,
+  `last_commit` bigint(20) NOT NULL DEFAULT 0,
+  `data` longblob,
+  `lock_version` bigint(20) NOT NULL DEFAULT 0,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `github_history_idx` (`github_id`, `resolution`, `start_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Leader election leases; expires is epoch milliseconds on the database clock
+CREATE TABLE IF NOT EXISTS `leases` (
+  `name` varchar(255) NOT NULL,
+  `owner` varchar(255) DEFAULT NULL,
+  `expires` bigint(20) NOT NULL DEFAULT 0,
+  `revision` bigint(20) NOT NULL DEFAULT 0,
+  PRIMARY KEY (`name`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
+-- Freshness of webhook updates, kept apart from the polled last_success
+ALTER TABLE `github` ADD COLUMN IF NOT EXISTS `last_webhook` datetime DEFAULT NULL;
+
 /*!40101 SET SQL_MODE=IFNULL(@OLD_SQL_MODE, '') */;
 /*!40014 SET FOREIGN_KEY_CHECKS=IF(@OLD_FOREIGN_KEY_CHECKS IS NULL, 1, @OLD_FOREIGN_KEY_CHECKS) */;
 /*!40101 SET CHARACTER_SET_CLIENT=@OLD_CHARACTER_SET_CLIENT */;
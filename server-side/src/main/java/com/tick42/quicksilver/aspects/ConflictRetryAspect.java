@@ -0,0 +1,77 @@
+package com.tick42.quicksilver.aspects;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@ConfigurationProperties(prefix = "retry.conflict")
+public class ConflictRetryAspect {
+    private final MeterRegistry meterRegistry;
+
+    private int maxAttempts = 3;
+    private long backoff = 20;
+    private long maxBackoff = 200;
+
+    public ConflictRetryAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("@annotation(com.tick42.quicksilver.aspects.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String method = joinPoint.getSignature().toShortString();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                meterRegistry.counter("optimistic.lock.conflicts", "method", method).increment();
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("optimistic.lock.exhausted", "method", method).increment();
+                    throw e;
+                }
+
+                meterRegistry.counter("optimistic.lock.retries", "method", method).increment();
+                Thread.sleep(ThreadLocalRandom.current().nextLong(Math.min(maxBackoff, backoff << (attempt - 1)) + 1));
+            }
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getBackoff() {
+        return backoff;
+    }
+
+    public void setBackoff(long backoff) {
+        this.backoff = backoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+}
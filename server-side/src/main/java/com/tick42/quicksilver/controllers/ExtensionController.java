@@ -28,6 +28,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -55,12 +56,22 @@ public class ExtensionController {
     @GetMapping("/getHomeExtensions")
     public HomePageDto getHomeExtensions(
             @RequestParam(name = "mostRecentCount", required = false) Integer mostRecentCount,
-            @RequestParam(name = "mostDownloadedCount") Integer mostDownloadedCount){
+            @RequestParam(name = "mostDownloadedCount") Integer mostDownloadedCount,
+            @RequestParam(name = "topRatedCount", required = false) Integer topRatedCount,
+            HttpServletRequest request){
 
         List<ExtensionDto> mostRecent = generateExtensionDTOList(extensionService.findMostRecent(mostRecentCount));
         List<ExtensionDto> featured = generateExtensionDTOList(extensionService.findFeatured());
         List<ExtensionDto> mostDownloaded = generateExtensionDTOList(extensionService.findMostDownloaded(mostDownloadedCount));
-        return new HomePageDto(mostRecent, featured, mostDownloaded);
+        List<ExtensionDto> topRated = generateExtensionDTOList(extensionService.findTopRated(topRatedCount));
+
+        List<ExtensionDto> all = new ArrayList<>(mostRecent);
+        all.addAll(featured);
+        all.addAll(mostDownloaded);
+        all.addAll(topRated);
+        setCurrentUserRatings(all, request);
+
+        return new HomePageDto(mostRecent, featured, mostDownloaded, topRated);
     }
 
     @GetMapping("/filter")
@@ -68,11 +79,13 @@ public class ExtensionController {
             @RequestParam(name = "name", required = false) String name,
             @RequestParam(name = "orderBy", required = false) String orderBy,
             @RequestParam(name = "page", required = false) Integer requestedPage,
-            @RequestParam(name = "perPage", required = false) Integer perPage) {
+            @RequestParam(name = "perPage", required = false) Integer perPage,
+            HttpServletRequest request) {
 
         PageDto<Extension> page = extensionService.findPageWithCriteria(name, orderBy, requestedPage, perPage);
         PageDto<ExtensionDto> pageDto = new PageDto<>(page);
         pageDto.setExtensions(generateExtensionDTOList(page.getExtensions()));
+        setCurrentUserRatings(pageDto.getExtensions(), request);
         return pageDto;
     }
 
@@ -111,19 +124,22 @@ public class ExtensionController {
         Extension extension = new Extension(extensionSpec, user, tags);
 
         if(extensionSpec.getGithub() != null)
-            extension.setGithub(gitHubService.generateGitHub(extensionSpec.getGithub()));
+            extension.setGithub(gitHubService.generatePendingGitHub(extensionSpec.getGithub()));
 
 
         extensionService.save(extension);
 
         setFiles(extensionImage, extensionFile, extensionCover, extension);
 
-        return new ExtensionDto(extensionService.save(extension));
+        extension = extensionService.save(extension);
+        if(extension.getGithub() != null)
+            gitHubService.enrichAfterCommit(extension.getGithub());
+
+        return new ExtensionDto(extension);
     }
 
     @PreAuthorize("hasRole('ROLE_USER') OR hasRole('ROLE_ADMIN')")
     @PostMapping("/auth/edit")
-    @Transactional
     public ExtensionDto editExtension(
             @RequestParam(name = "image", required = false) MultipartFile extensionImage ,
             @RequestParam(name = "file", required = false) MultipartFile extensionFile,
@@ -137,15 +153,26 @@ public class ExtensionController {
         ExtensionSpec extensionSpec = validateExtension(extensionJson);
         Set<Tag> tags = tagService.generateTags(extensionSpec.getTags());
 
-        Extension extension = extensionService.update(new Extension(extensionSpec, user, tags));
+        Extension edited = new Extension(extensionSpec, user, tags);
+        edited.setId(extensionSpec.getId());
+        Extension extension = extensionService.update(edited);
 
-        if(extensionSpec.getGithub() != null)
-            extension.setGithub(gitHubService.updateGithub(extensionSpec.getGithubId(), extensionSpec.getGithub()));
+        GitHubModel current = extension.getGithub();
+        boolean replaceGitHub = extensionSpec.getGithub() != null &&
+                (current == null || !extensionSpec.getGithub().equals(current.getLink()));
+        boolean upload = extensionImage != null || extensionFile != null || extensionCover != null;
 
+        if(replaceGitHub || upload) {
+            if(replaceGitHub)
+                edited.setGithub(gitHubService.generatePendingGitHub(extensionSpec.getGithub()));
+            setFiles(extensionImage, extensionFile, extensionCover, edited);
+            extension = extensionService.update(edited);
+        }
 
-        setFiles(extensionImage, extensionFile, extensionCover, extension);
+        if(replaceGitHub)
+            gitHubService.enrichAfterCommit(extension.getGithub());
 
-        ExtensionDto extensionDto = new ExtensionDto(extensionService.save(extension));
+        ExtensionDto extensionDto = new ExtensionDto(extension);
         int rating = ratingService.userRatingForExtension(extension.getId(), loggedUser.getId());
         extensionDto.setCurrentUserRatingValue(rating);
 
@@ -174,7 +201,7 @@ public class ExtensionController {
             extension.setImage(image);
         }
         if(extensionFile != null){
-            File file = fileService.create(extensionFile, String.valueOf(extensionId));
+            File file = fileService.store(extensionFile, String.valueOf(extensionId));
             extension.setFile(file);
         }
         if(extensionCover != null){
@@ -319,6 +346,25 @@ public class ExtensionController {
                 .status(HttpStatus.BAD_REQUEST)
                 .body(e.getMessage());
     }
+    private void setCurrentUserRatings(List<ExtensionDto> extensions, HttpServletRequest request) {
+        String token = request.getHeader("Authorization");
+        if (token == null || extensions.isEmpty()) {
+            return;
+        }
+
+        UserDetails loggedUser;
+        try {
+            loggedUser = Jwt.validate(token.substring(6));
+        } catch (Exception e) {
+            return;
+        }
+
+        LongIntMap ratings = ratingService.userRatingsForExtensions(extensions.stream()
+                .map(ExtensionDto::getId)
+                .collect(Collectors.toSet()), loggedUser.getId());
+        extensions.forEach(extension -> extension.setCurrentUserRatingValue(ratings.get(extension.getId())));
+    }
+
     private List<ExtensionDto> generateExtensionDTOList(List<Extension> extensions) {
         return extensions.stream()
                 .map(this::generateExtensionDTO)
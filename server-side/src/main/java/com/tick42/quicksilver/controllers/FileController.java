@@ -3,13 +3,15 @@ package com.tick42.quicksilver.controllers;
 import com.tick42.quicksilver.exceptions.FileFormatException;
 import com.tick42.quicksilver.exceptions.FileNotFoundUncheckedException;
 import com.tick42.quicksilver.exceptions.FileStorageException;
+import com.tick42.quicksilver.exceptions.InvalidParameterException;
 import com.tick42.quicksilver.exceptions.UnauthorizedExtensionModificationException;
+import com.tick42.quicksilver.models.Extension;
 import com.tick42.quicksilver.models.File;
 import com.tick42.quicksilver.services.base.ExtensionService;
 import com.tick42.quicksilver.services.base.FileService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.tick42.quicksilver.services.base.ImageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
@@ -21,47 +23,146 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.persistence.EntityNotFoundException;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(value = "/api")
+@ConfigurationProperties(prefix = "file.bundle")
 public class FileController {
-    private static final Logger logger = LoggerFactory.getLogger(FileController.class);
     private final FileService fileService;
     private final ExtensionService extensionService;
+    private final ImageService imageService;
+    private int limit = 50;
 
     @Autowired
-    public FileController(FileService fileService, ExtensionService extensionService) {
+    public FileController(FileService fileService, ExtensionService extensionService, ImageService imageService) {
         this.fileService = fileService;
         this.extensionService = extensionService;
+        this.imageService = imageService;
     }
 
 
     @GetMapping("/download/{fileName:.+}")
-    public ResponseEntity<Resource> getAsResource(@PathVariable String fileName, HttpServletRequest request) {
-        Resource resource = fileService.getAsResource(fileName);
-        String contentType = null;
-        try {
-            contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-        } catch (IOException e) {
-            logger.info("Could not get file type");
+    public ResponseEntity<Resource> getAsResource(
+            @PathVariable String fileName,
+            @RequestParam(name = "w", required = false) Integer width,
+            @RequestParam(name = "h", required = false) Integer height,
+            @RequestParam(name = "fit", required = false) String fit,
+            HttpServletRequest request) {
+        boolean resize = width != null || height != null;
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+
+        Resource resource = null;
+        if (!resize && acceptsGzip(acceptEncoding)) {
+            resource = fileService.getCompressedAsResource(fileName);
+        }
+        boolean compressed = resource != null;
+
+        if (resize) {
+            File image = fileService.findByName(fileName);
+            if (image == null) {
+                throw new FileNotFoundUncheckedException("File not found");
+            }
+            // the original is only read when the variant isn't stored yet
+            resource = imageService.getVariant(image, () -> fileService.getAsResource(fileName), width, height, fit);
+        } else if (!compressed) {
+            resource = fileService.getAsResource(fileName);
         }
 
+        String contentType = request.getServletContext().getMimeType(resize ? resource.getFilename() : fileName);
+
         if (contentType == null) {
             contentType = "application/octet-stream";
         }
 
-        if(fileName.contains("file")) {
+        if(fileName.contains("file") && !resize) {
             File file = fileService.findByName(fileName);
             fileService.increaseCount(file);
             extensionService.reloadFile(file);
         }
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(contentType))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" +
-                        resource.getFilename() + "\"")
-                .body(resource);
+                        fileName + "\"");
+
+        if (compressed) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.body(resource);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzip = null;
+        Double wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = quality;
+            } else if (name.equals("*")) {
+                wildcard = quality;
+            }
+        }
+
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return wildcard != null && wildcard > 0;
+    }
+
+    @GetMapping("/download/bundle")
+    public void getBundle(@RequestParam(name = "ids") List<Long> ids, HttpServletResponse response) throws IOException {
+        if (ids.size() > limit) {
+            throw new InvalidParameterException("A bundle can contain at most " + limit + " extensions.");
+        }
+
+        List<Extension> extensions = extensionService.findPublishedByIds(ids).stream()
+                .filter(extension -> extension.getFile() != null)
+                .collect(Collectors.toList());
+
+        if (extensions.isEmpty()) {
+            throw new FileNotFoundUncheckedException("No downloadable extensions found.");
+        }
+
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"extensions.zip\"");
+        fileService.writeBundle(extensions, response.getOutputStream());
+
+        List<File> files = extensions.stream()
+                .map(Extension::getFile)
+                .collect(Collectors.toList());
+        fileService.increaseCount(files);
+        files.forEach(extensionService::reloadFile);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
     }
 
     @ExceptionHandler
@@ -80,6 +181,14 @@ public class FileController {
                 .body(e.getMessage());
     }
 
+    @ExceptionHandler
+    ResponseEntity handleInvalidParameterException(InvalidParameterException e) {
+        e.printStackTrace();
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(e.getMessage());
+    }
+
     @ExceptionHandler
     ResponseEntity handleExtensionNotFoundException(EntityNotFoundException e) {
         e.printStackTrace();
@@ -3,8 +3,11 @@ package com.tick42.quicksilver.controllers;
 import com.tick42.quicksilver.exceptions.GitHubRepositoryException;
 import com.tick42.quicksilver.models.*;
 import com.tick42.quicksilver.models.Dtos.GitHubDto;
+import com.tick42.quicksilver.models.Dtos.GitHubHistoryDto;
 import com.tick42.quicksilver.models.Dtos.GitHubSettingDto;
+import com.tick42.quicksilver.models.Dtos.GitHubTokenDto;
 import com.tick42.quicksilver.models.specs.GitHubSettingSpec;
+import com.tick42.quicksilver.services.GitHubWebhookQueue;
 import com.tick42.quicksilver.services.base.ExtensionService;
 import com.tick42.quicksilver.services.base.GitHubService;
 import com.tick42.quicksilver.services.base.UserService;
@@ -19,6 +22,9 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.persistence.EntityNotFoundException;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(value = "/api/github")
@@ -27,8 +33,11 @@ public class GitHubController {
     private final GitHubService gitHubService;
     private final ExtensionService extensionService;
     private final UserService userService;
+    private final GitHubWebhookQueue webhookQueue;
 
-    public GitHubController(GitHubService gitHubService, ExtensionService extensionService, UserService userService) {
+    public GitHubController(GitHubService gitHubService, ExtensionService extensionService, UserService userService,
+                            GitHubWebhookQueue webhookQueue) {
+        this.webhookQueue = webhookQueue;
         this.gitHubService = gitHubService;
         this.extensionService = extensionService;
         this.userService = userService;
@@ -56,13 +65,51 @@ public class GitHubController {
         return new GitHubSettingDto(gitHubService.getSettings(user));
     }
 
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/auth/tokens")
+    public List<GitHubTokenDto> getTokens() {
+        return gitHubService.getTokens()
+                .stream()
+                .map(GitHubTokenDto::new)
+                .collect(Collectors.toList());
+    }
+
+    @PostMapping("/webhook")
+    public ResponseEntity receiveWebhook(@RequestHeader(name = "X-GitHub-Event", required = false) String event,
+                                         @RequestHeader(name = "X-GitHub-Delivery", required = false) String delivery,
+                                         @RequestHeader(name = "X-Hub-Signature-256", required = false) String signature,
+                                         @RequestBody byte[] payload) throws IOException {
+        if (!webhookQueue.verify(payload, signature)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid signature.");
+        }
+
+        switch (webhookQueue.submit(delivery, event, payload)) {
+            case ACCEPTED:
+                return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+            case FULL:
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Webhook queue is full.");
+            default:
+                return ResponseEntity.ok().build();
+        }
+    }
+
+    @GetMapping("/{id}/status")
+    public GitHubDto getStatus(@PathVariable("id") long id) {
+        return new GitHubDto(gitHubService.findById(id));
+    }
+
+    @GetMapping("/{id}/history")
+    public GitHubHistoryDto getHistory(@PathVariable("id") long id, @RequestParam(name = "days", defaultValue = "30") int days) {
+        return new GitHubHistoryDto(id, gitHubService.getHistory(id, days));
+    }
+
     @GetMapping("/getRepoDetails")
     public GitHubDto getRepoDetails(@RequestParam(name = "link") String link){
-        GitHubModel gitHubModel = gitHubService.generateGitHub(link);
+        GitHubModel gitHubModel = gitHubService.lookupGitHub(link);
         if(gitHubModel.getFailMessage() != null){
             throw new GitHubRepositoryException("Couldn't connect to GitHubModel check the URL.");
         }
-        return new GitHubDto(gitHubService.generateGitHub(link));
+        return new GitHubDto(gitHubModel);
     }
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
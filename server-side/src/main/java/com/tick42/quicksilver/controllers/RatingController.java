@@ -9,6 +9,7 @@ import com.tick42.quicksilver.services.base.RatingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import javax.persistence.EntityNotFoundException;
@@ -46,6 +47,12 @@ public class RatingController {
         return ratingService.userRatingForExtension(id, userId);
     }
 
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @PostMapping(value = "/auth/rebuild")
+    public void rebuildAggregates() {
+        ratingService.rebuildAggregates();
+    }
+
     @ExceptionHandler
     ResponseEntity handleUnauthorizedExtensionModificationException(UnauthorizedExtensionModificationException e) {
         e.printStackTrace();
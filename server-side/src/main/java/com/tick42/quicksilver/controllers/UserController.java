@@ -5,12 +5,14 @@ import com.tick42.quicksilver.models.Dtos.ExtensionDto;
 import com.tick42.quicksilver.models.Dtos.UserDto;
 import com.tick42.quicksilver.models.Extension;
 import com.tick42.quicksilver.models.File;
+import com.tick42.quicksilver.models.LongIntMap;
 import com.tick42.quicksilver.models.specs.NewPasswordSpec;
 import com.tick42.quicksilver.models.specs.RegisterSpec;
 import com.tick42.quicksilver.models.UserDetails;
 import com.tick42.quicksilver.models.UserModel;
 import com.tick42.quicksilver.security.Jwt;
 import com.tick42.quicksilver.services.base.FileService;
+import com.tick42.quicksilver.services.base.RatingService;
 import com.tick42.quicksilver.services.base.UserService;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpStatus;
@@ -35,10 +37,12 @@ public class UserController {
 
     private final UserService userService;
     private final FileService fileService;
+    private final RatingService ratingService;
 
-    public UserController(UserService userService, FileService fileService) {
+    public UserController(UserService userService, FileService fileService, RatingService ratingService) {
         this.userService = userService;
         this.fileService = fileService;
+        this.ratingService = ratingService;
     }
 
     @PostMapping(value = "/register")
@@ -90,7 +94,17 @@ public class UserController {
             loggedUser = null;
         }
         UserModel user = userService.findById(id, loggedUser);
-        return new UserDto(user);
+        UserDto userDto = new UserDto(user);
+
+        if (loggedUser != null && !userDto.getExtensions().isEmpty()) {
+            LongIntMap ratings = ratingService.userRatingsForExtensions(userDto.getExtensions().stream()
+                    .map(ExtensionDto::getId)
+                    .collect(Collectors.toSet()), loggedUser.getId());
+            userDto.getExtensions().forEach(extension ->
+                    extension.setCurrentUserRatingValue(ratings.get(extension.getId())));
+        }
+
+        return userDto;
     }
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
@@ -28,10 +28,12 @@ public class ExtensionDto {
     private String lastErrorMessage;
     private String fileLocation;
     private String imageLocation;
+    private String imagePlaceholder;
     private String coverLocation;
     private List<String> tags = new ArrayList<>();
     private double rating;
     private int timesRated;
+    private int[] ratingHistogram;
     private int currentUserRatingValue;
     private long githubId;
 
@@ -52,6 +54,12 @@ public class ExtensionDto {
         this.version = extension.getVersion();
         this.rating = extension.getRating();
         this.timesRated = extension.getTimesRated();
+        this.ratingHistogram = extension.getHistogram().getCounts();
+
+        if (extension.getGithub() != null) {
+            this.githubId = extension.getGithub().getId();
+            this.gitHubLink = extension.getGithub().getLink();
+        }
 
         setImageLocation(extension.getImage());
         setCoverLocation(extension.getCover());
@@ -200,9 +208,18 @@ public class ExtensionDto {
     public void setImageLocation(File image) {
         if(image != null){
             this.imageLocation = image.getName();
+            this.imagePlaceholder = image.getPlaceholder();
         }
     }
 
+    public String getImagePlaceholder() {
+        return imagePlaceholder;
+    }
+
+    public void setImagePlaceholder(String imagePlaceholder) {
+        this.imagePlaceholder = imagePlaceholder;
+    }
+
     public List<String> getTags() {
         return tags;
     }
@@ -251,6 +268,14 @@ public class ExtensionDto {
         this.lastErrorMessage = lastErrorMessage;
     }
 
+    public int[] getRatingHistogram() {
+        return ratingHistogram;
+    }
+
+    public void setRatingHistogram(int[] ratingHistogram) {
+        this.ratingHistogram = ratingHistogram;
+    }
+
     public int getCurrentUserRatingValue() {
         return currentUserRatingValue;
     }
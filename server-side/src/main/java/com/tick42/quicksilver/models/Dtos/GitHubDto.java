@@ -7,11 +7,14 @@ public class GitHubDto {
     private long id;
     private int pullRequests;
     private int openIssues;
+    private int stars;
+    private int forks;
 
     private String user;
     private String repo;
     private String link;
     private String failMessage;
+    private String status;
 
     private String lastCommit;
     private String lastSuccess;
@@ -26,10 +29,21 @@ public class GitHubDto {
         this.user = gitHubModel.getUser();
         this.pullRequests = gitHubModel.getPullRequests();
         this.openIssues = gitHubModel.getOpenIssues();
+        this.stars = gitHubModel.getStars();
+        this.forks = gitHubModel.getForks();
         setLastCommit(gitHubModel.getLastCommit());
         setLastFail(gitHubModel.getLastFail());
         setLastSuccess(gitHubModel.getLastSuccess());
         setFailMessage(gitHubModel.getFailMessage());
+
+        if (gitHubModel.getLastSuccess() == null && gitHubModel.getLastFail() == null) {
+            this.status = "pending";
+        } else if (gitHubModel.getLastSuccess() == null || (gitHubModel.getLastFail() != null &&
+                gitHubModel.getLastFail().isAfter(gitHubModel.getLastSuccess()))) {
+            this.status = "failed";
+        } else {
+            this.status = "ready";
+        }
     }
 
     public long getId() {
@@ -119,4 +133,28 @@ public class GitHubDto {
             this.lastFail = lastFail.toString();
         }
     }
+
+    public int getStars() {
+        return stars;
+    }
+
+    public void setStars(int stars) {
+        this.stars = stars;
+    }
+
+    public int getForks() {
+        return forks;
+    }
+
+    public void setForks(int forks) {
+        this.forks = forks;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
 }
@@ -0,0 +1,73 @@
+package com.tick42.quicksilver.models.Dtos;
+
+import com.tick42.quicksilver.models.GitHubHistory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class GitHubHistoryDto {
+    private long githubId;
+    private long[] times;
+    private int[] pullRequests;
+    private int[] openIssues;
+    private long[] lastCommits;
+
+    public GitHubHistoryDto() {
+
+    }
+
+    public GitHubHistoryDto(long githubId, List<GitHubHistory.Sample> samples) {
+        this.githubId = githubId;
+        this.times = new long[samples.size()];
+        this.pullRequests = new int[samples.size()];
+        this.openIssues = new int[samples.size()];
+        this.lastCommits = new long[samples.size()];
+
+        for (int i = 0; i < samples.size(); i++) {
+            GitHubHistory.Sample sample = samples.get(i);
+            times[i] = TimeUnit.MINUTES.toMillis(sample.getTime());
+            pullRequests[i] = sample.getPullRequests();
+            openIssues[i] = sample.getOpenIssues();
+            lastCommits[i] = TimeUnit.MINUTES.toMillis(sample.getLastCommit());
+        }
+    }
+
+    public long getGithubId() {
+        return githubId;
+    }
+
+    public void setGithubId(long githubId) {
+        this.githubId = githubId;
+    }
+
+    public long[] getTimes() {
+        return times;
+    }
+
+    public void setTimes(long[] times) {
+        this.times = times;
+    }
+
+    public int[] getPullRequests() {
+        return pullRequests;
+    }
+
+    public void setPullRequests(int[] pullRequests) {
+        this.pullRequests = pullRequests;
+    }
+
+    public int[] getOpenIssues() {
+        return openIssues;
+    }
+
+    public void setOpenIssues(int[] openIssues) {
+        this.openIssues = openIssues;
+    }
+
+    public long[] getLastCommits() {
+        return lastCommits;
+    }
+
+    public void setLastCommits(long[] lastCommits) {
+        this.lastCommits = lastCommits;
+    }
+}
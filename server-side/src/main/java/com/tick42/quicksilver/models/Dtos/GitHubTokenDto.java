@@ -0,0 +1,78 @@
+package com.tick42.quicksilver.models.Dtos;
+
+import com.tick42.quicksilver.services.GitHubTokenPool;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+public class GitHubTokenDto {
+    private long settingsId;
+    private String username;
+    private int remaining;
+    private int limit;
+    private String reset;
+    private boolean valid;
+
+    public GitHubTokenDto() {
+
+    }
+
+    public GitHubTokenDto(GitHubTokenPool.Token token) {
+        this.settingsId = token.getSettingsId();
+        this.username = token.getUsername();
+        this.remaining = token.getRemaining();
+        this.limit = token.getLimit();
+        this.valid = token.isValid();
+        setReset(LocalDateTime.ofInstant(Instant.ofEpochMilli(token.getReset()), ZoneId.systemDefault()));
+    }
+
+    public long getSettingsId() {
+        return settingsId;
+    }
+
+    public void setSettingsId(long settingsId) {
+        this.settingsId = settingsId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public int getRemaining() {
+        return remaining;
+    }
+
+    public void setRemaining(int remaining) {
+        this.remaining = remaining;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public void setValid(boolean valid) {
+        this.valid = valid;
+    }
+
+    public String getReset() {
+        return reset;
+    }
+
+    public void setReset(LocalDateTime reset) {
+        if(reset != null){
+            this.reset = reset.toString();
+        }
+    }
+}
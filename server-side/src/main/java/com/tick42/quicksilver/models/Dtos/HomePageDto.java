@@ -6,14 +6,16 @@ public class HomePageDto {
     private List<ExtensionDto> mostRecent;
     private List<ExtensionDto> featured;
     private List<ExtensionDto> mostDownloaded;
+    private List<ExtensionDto> topRated;
 
     public HomePageDto() {
     }
 
-    public HomePageDto(List<ExtensionDto> mostRecent, List<ExtensionDto> featured, List<ExtensionDto> mostDownloaded) {
+    public HomePageDto(List<ExtensionDto> mostRecent, List<ExtensionDto> featured, List<ExtensionDto> mostDownloaded, List<ExtensionDto> topRated) {
         this.mostRecent = mostRecent;
         this.featured = featured;
         this.mostDownloaded = mostDownloaded;
+        this.topRated = topRated;
     }
 
     public List<ExtensionDto> getMostRecent() {
@@ -39,4 +41,12 @@ public class HomePageDto {
     public void setMostDownloaded(List<ExtensionDto> mostDownloaded) {
         this.mostDownloaded = mostDownloaded;
     }
+
+    public List<ExtensionDto> getTopRated() {
+        return topRated;
+    }
+
+    public void setTopRated(List<ExtensionDto> topRated) {
+        this.topRated = topRated;
+    }
 }
@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 import java.util.*;
 
 @Entity
-@Table(name = "extensions")
+@Table(name = "extensions", indexes = @Index(name = "extensions_score_idx", columnList = "pending, score"))
 public class Extension {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,9 +28,19 @@ public class Extension {
     @JoinColumn(name = "owner")
     private UserModel owner;
 
-    @Column(name = "times_rated")
+    @Embedded
+    private RatingHistogram histogram = new RatingHistogram();
+
+    @Column(name = "times_rated", updatable = false)
     private int timesRated;
 
+    @Column(updatable = false)
+    private double score;
+
+    @Version
+    @Column(name = "lock_version")
+    private long lockVersion;
+
     @Column(name = "upload_date")
     private LocalDateTime uploadDate = LocalDateTime.now();
 
@@ -46,7 +56,6 @@ public class Extension {
     private String version;
     private boolean pending = true;
     private boolean featured;
-    private double rating;
 
     public Extension() {
 
@@ -175,11 +184,23 @@ public class Extension {
     }
 
     public double getRating() {
-        return rating;
+        return getHistogram().getAverage();
+    }
+
+    public RatingHistogram getHistogram() {
+        return histogram == null ? new RatingHistogram() : histogram;
+    }
+
+    public void setHistogram(RatingHistogram histogram) {
+        this.histogram = histogram;
     }
 
-    public void setRating(double rating) {
-        this.rating = rating;
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
     }
 
     public int getTimesRated() {
@@ -197,4 +218,12 @@ public class Extension {
     public void setCover(File cover) {
         this.cover = cover;
     }
+
+    public long getLockVersion() {
+        return lockVersion;
+    }
+
+    public void setLockVersion(long lockVersion) {
+        this.lockVersion = lockVersion;
+    }
 }
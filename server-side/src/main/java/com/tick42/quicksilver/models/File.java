@@ -16,9 +16,16 @@ public class File {
     @PrimaryKeyJoinColumn
     private Extension extension;
 
+    @Version
+    @Column(name = "lock_version")
+    private long lockVersion;
+
     @Column(name = "download_count")
     private int downloadCount;
 
+    @Column(length = 2048)
+    private String placeholder;
+
     private String name;
     private String type;
     private double size;
@@ -94,4 +101,20 @@ public class File {
     public void setDownloadCount(int downloadCount) {
         this.downloadCount = downloadCount;
     }
+
+    public String getPlaceholder() {
+        return placeholder;
+    }
+
+    public void setPlaceholder(String placeholder) {
+        this.placeholder = placeholder;
+    }
+
+    public long getLockVersion() {
+        return lockVersion;
+    }
+
+    public void setLockVersion(long lockVersion) {
+        this.lockVersion = lockVersion;
+    }
 }
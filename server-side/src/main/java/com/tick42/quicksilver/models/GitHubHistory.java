@@ -0,0 +1,250 @@
+package com.tick42.quicksilver.models;
+
+import javax.persistence.*;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One segment of a repository's stats history. Samples inside {@code data} are stored as
+ * zigzag varint deltas against the previous sample, so a segment stays a few bytes per sample.
+ */
+@Entity
+@Table(name = "github_history", indexes = @Index(name = "github_history_idx",
+        columnList = "github_id, resolution, start_time", unique = true))
+public class GitHubHistory {
+    public enum Resolution {
+        RAW(0, 24 * 60),
+        HOURLY(60, 7 * 24 * 60),
+        DAILY(24 * 60, 180 * 24 * 60);
+
+        private final long bucket;
+        private final long span;
+
+        Resolution(long bucket, long span) {
+            this.bucket = bucket;
+            this.span = span;
+        }
+
+        public long bucket(long minute) {
+            return bucket == 0 ? minute : Math.floorDiv(minute, bucket) * bucket;
+        }
+
+        public long segment(long minute) {
+            return Math.floorDiv(minute, span) * span;
+        }
+
+        public long getSpan() {
+            return span;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "github_id")
+    private long gitHubId;
+
+    @Enumerated(EnumType.STRING)
+    private Resolution resolution;
+
+    @Column(name = "start_time")
+    private long start;
+
+    private int count;
+
+    @Column(name = "last_time")
+    private long lastTime;
+
+    @Column(name = "last_pull_requests")
+    private int lastPullRequests;
+
+    @Column(name = "last_open_issues")
+    private int lastOpenIssues;
+
+    @Column(name = "last_commit")
+    private long lastCommit;
+
+    @Lob
+    private byte[] data = new byte[0];
+
+    @Version
+    @Column(name = "lock_version")
+    private long lockVersion;
+
+    public GitHubHistory() {
+
+    }
+
+    public GitHubHistory(long gitHubId, Resolution resolution, long start) {
+        this.gitHubId = gitHubId;
+        this.resolution = resolution;
+        this.start = start;
+        this.lastTime = start;
+    }
+
+    public boolean append(Sample sample) {
+        long time = resolution.bucket(sample.time);
+        if (count > 0 && time <= lastTime) {
+            if (time < lastTime || resolution == Resolution.RAW) {
+                return false;
+            }
+
+            List<Sample> samples = getSamples();
+            samples.set(samples.size() - 1, new Sample(time, sample.pullRequests, sample.openIssues, sample.lastCommit));
+            encode(samples);
+            return true;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+        out.write(data, 0, data.length);
+        write(out, time - lastTime);
+        write(out, sample.pullRequests - lastPullRequests);
+        write(out, sample.openIssues - lastOpenIssues);
+        write(out, sample.lastCommit - lastCommit);
+        data = out.toByteArray();
+
+        last(time, sample);
+        count++;
+        return true;
+    }
+
+    public List<Sample> getSamples() {
+        List<Sample> samples = new ArrayList<>(count);
+        long time = start;
+        int pullRequests = 0;
+        int openIssues = 0;
+        long lastCommit = 0;
+
+        int[] position = {0};
+        for (int i = 0; i < count; i++) {
+            time += read(data, position);
+            pullRequests += (int) read(data, position);
+            openIssues += (int) read(data, position);
+            lastCommit += read(data, position);
+            samples.add(new Sample(time, pullRequests, openIssues, lastCommit));
+        }
+
+        return samples;
+    }
+
+    private void encode(List<Sample> samples) {
+        data = new byte[0];
+        count = 0;
+        last(start, new Sample(start, 0, 0, 0));
+        samples.forEach(this::append);
+    }
+
+    private void last(long time, Sample sample) {
+        lastTime = time;
+        lastPullRequests = sample.pullRequests;
+        lastOpenIssues = sample.openIssues;
+        lastCommit = sample.lastCommit;
+    }
+
+    private static void write(ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    private static long read(byte[] data, int[] position) {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position[0]++];
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getGitHubId() {
+        return gitHubId;
+    }
+
+    public void setGitHubId(long gitHubId) {
+        this.gitHubId = gitHubId;
+    }
+
+    public Resolution getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(Resolution resolution) {
+        this.resolution = resolution;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public void setStart(long start) {
+        this.start = start;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    public byte[] getData() {
+        return Arrays.copyOf(data, data.length);
+    }
+
+    public long getLockVersion() {
+        return lockVersion;
+    }
+
+    public void setLockVersion(long lockVersion) {
+        this.lockVersion = lockVersion;
+    }
+
+    public static class Sample {
+        private final long time;
+        private final int pullRequests;
+        private final int openIssues;
+        private final long lastCommit;
+
+        public Sample(long time, int pullRequests, int openIssues, long lastCommit) {
+            this.time = time;
+            this.pullRequests = pullRequests;
+            this.openIssues = openIssues;
+            this.lastCommit = lastCommit;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public int getPullRequests() {
+            return pullRequests;
+        }
+
+        public int getOpenIssues() {
+            return openIssues;
+        }
+
+        public long getLastCommit() {
+            return lastCommit;
+        }
+    }
+}
@@ -4,7 +4,7 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "github")
+@Table(name = "github", indexes = @Index(name = "github_user_repo_idx", columnList = "user, repo"))
 public class GitHubModel {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,6 +20,9 @@ public class GitHubModel {
     @Column(name = "open_issues")
     private int openIssues;
 
+    private int stars;
+    private int forks;
+
     @Column(name = "last_commit")
     private LocalDateTime lastCommit;
 
@@ -29,9 +32,22 @@ public class GitHubModel {
     @Column(name = "last_fail")
     private LocalDateTime lastFail;
 
+    @Column(name = "last_webhook")
+    private LocalDateTime lastWebhook;
+
     @Column(name = "fail_message")
     private String failMessage;
 
+    @Column(name = "fail_count")
+    private int failCount;
+
+    @Column(name = "next_refresh")
+    private LocalDateTime nextRefresh;
+
+    // set when the last fetch failed because of the repository itself, e.g. it is gone or can't be parsed
+    @Transient
+    private boolean repositoryFailure;
+
     private String link;
     private String user;
     private String repo;
@@ -133,4 +149,52 @@ public class GitHubModel {
     public void setFailMessage(String failMessage) {
         this.failMessage = failMessage;
     }
+
+    public int getStars() {
+        return stars;
+    }
+
+    public void setStars(int stars) {
+        this.stars = stars;
+    }
+
+    public int getForks() {
+        return forks;
+    }
+
+    public void setForks(int forks) {
+        this.forks = forks;
+    }
+
+    public int getFailCount() {
+        return failCount;
+    }
+
+    public void setFailCount(int failCount) {
+        this.failCount = failCount;
+    }
+
+    public LocalDateTime getNextRefresh() {
+        return nextRefresh;
+    }
+
+    public void setNextRefresh(LocalDateTime nextRefresh) {
+        this.nextRefresh = nextRefresh;
+    }
+
+    public LocalDateTime getLastWebhook() {
+        return lastWebhook;
+    }
+
+    public void setLastWebhook(LocalDateTime lastWebhook) {
+        this.lastWebhook = lastWebhook;
+    }
+
+    public boolean isRepositoryFailure() {
+        return repositoryFailure;
+    }
+
+    public void setRepositoryFailure(boolean repositoryFailure) {
+        this.repositoryFailure = repositoryFailure;
+    }
 }
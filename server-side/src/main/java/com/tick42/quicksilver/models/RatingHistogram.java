@@ -0,0 +1,96 @@
+package com.tick42.quicksilver.models;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.util.Arrays;
+
+@Embeddable
+public class RatingHistogram {
+    @Column(name = "stars_1", updatable = false)
+    private int oneStar;
+
+    @Column(name = "stars_2", updatable = false)
+    private int twoStars;
+
+    @Column(name = "stars_3", updatable = false)
+    private int threeStars;
+
+    @Column(name = "stars_4", updatable = false)
+    private int fourStars;
+
+    @Column(name = "stars_5", updatable = false)
+    private int fiveStars;
+
+    public RatingHistogram() {
+
+    }
+
+    public RatingHistogram(int oneStar, int twoStars, int threeStars, int fourStars, int fiveStars) {
+        this.oneStar = oneStar;
+        this.twoStars = twoStars;
+        this.threeStars = threeStars;
+        this.fourStars = fourStars;
+        this.fiveStars = fiveStars;
+    }
+
+    public static RatingHistogram of(int stars, int count) {
+        int[] counts = new int[5];
+        counts[stars - 1] = count;
+        return new RatingHistogram(counts[0], counts[1], counts[2], counts[3], counts[4]);
+    }
+
+    public RatingHistogram plus(RatingHistogram other) {
+        return new RatingHistogram(oneStar + other.oneStar, twoStars + other.twoStars,
+                threeStars + other.threeStars, fourStars + other.fourStars, fiveStars + other.fiveStars);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) return true;
+        if (!(obj instanceof RatingHistogram)) return false;
+
+        return Arrays.equals(getCounts(), ((RatingHistogram) obj).getCounts());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(getCounts());
+    }
+
+    public int[] getCounts() {
+        return new int[]{oneStar, twoStars, threeStars, fourStars, fiveStars};
+    }
+
+    public int getTotal() {
+        return oneStar + twoStars + threeStars + fourStars + fiveStars;
+    }
+
+    public long getSum() {
+        return oneStar + 2L * twoStars + 3L * threeStars + 4L * fourStars + 5L * fiveStars;
+    }
+
+    public double getAverage() {
+        int total = getTotal();
+        return total == 0 ? 0 : (double) getSum() / total;
+    }
+
+    public int getOneStar() {
+        return oneStar;
+    }
+
+    public int getTwoStars() {
+        return twoStars;
+    }
+
+    public int getThreeStars() {
+        return threeStars;
+    }
+
+    public int getFourStars() {
+        return fourStars;
+    }
+
+    public int getFiveStars() {
+        return fiveStars;
+    }
+}
@@ -26,13 +26,22 @@ public class UserModel {
     @JoinColumn(name = "image_id")
     private File profileImage;
 
-    @Column(name = "extensions_rated")
+    @Version
+    @Column(name = "lock_version")
+    private long lockVersion;
+
+    @Column(name = "extensions_rated", updatable = false)
     private int extensionsRated;
 
+    @Column(name = "rating_sum", updatable = false)
+    private long ratingSum;
+
+    @Column(name = "times_rated", updatable = false)
+    private int timesRated;
+
     private String username;
     private String password;
     private String role;
-    private double rating;
     private String country;
     private String info;
 
@@ -101,11 +110,23 @@ public class UserModel {
     }
 
     public double getRating() {
-        return rating;
+        return timesRated == 0 ? 0 : (double) ratingSum / timesRated;
+    }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(long ratingSum) {
+        this.ratingSum = ratingSum;
     }
 
-    public void setRating(double rating) {
-        this.rating = rating;
+    public int getTimesRated() {
+        return timesRated;
+    }
+
+    public void setTimesRated(int timesRated) {
+        this.timesRated = timesRated;
     }
 
     public int getExtensionsRated() {
@@ -139,4 +160,12 @@ public class UserModel {
     public void setProfileImage(File profileImage) {
         this.profileImage = profileImage;
     }
+
+    public long getLockVersion() {
+        return lockVersion;
+    }
+
+    public void setLockVersion(long lockVersion) {
+        this.lockVersion = lockVersion;
+    }
 }
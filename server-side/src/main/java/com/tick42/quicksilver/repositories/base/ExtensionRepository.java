@@ -1,11 +1,15 @@
 package com.tick42.quicksilver.repositories.base;
 
 import com.tick42.quicksilver.models.Extension;
+import com.tick42.quicksilver.models.RatingHistogram;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import javax.transaction.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ExtensionRepository extends JpaRepository<Extension, Long> {
@@ -16,6 +20,43 @@ public interface ExtensionRepository extends JpaRepository<Extension, Long> {
     @Query(value = "select count(*) from Extension where pending = false and owner.active = true and lower(name) like lower(concat(:name,'%'))")
     Long getTotalResults(@Param("name") String name);
 
+    @Query(value = "from Extension where id in :ids and pending = false and owner.active = true")
+    List<Extension> findPublishedByIds(@Param("ids") List<Long> ids);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Extension set histogram.oneStar = histogram.oneStar + :one, " +
+            "histogram.twoStars = histogram.twoStars + :two, histogram.threeStars = histogram.threeStars + :three, " +
+            "histogram.fourStars = histogram.fourStars + :four, histogram.fiveStars = histogram.fiveStars + :five, " +
+            "timesRated = timesRated + :one + :two + :three + :four + :five where id = :id")
+    int updateRating(@Param("id") long id, @Param("one") int one, @Param("two") int two,
+                     @Param("three") int three, @Param("four") int four, @Param("five") int five);
+
+    default int updateRating(long id, RatingHistogram delta) {
+        return updateRating(id, delta.getOneStar(), delta.getTwoStars(), delta.getThreeStars(),
+                delta.getFourStars(), delta.getFiveStars());
+    }
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Extension set histogram.oneStar = 0, histogram.twoStars = 0, histogram.threeStars = 0, " +
+            "histogram.fourStars = 0, histogram.fiveStars = 0, timesRated = 0, score = 0")
+    int resetRatings();
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Extension set score = (:priorWeight * :priorMean + histogram.oneStar + 2 * histogram.twoStars + " +
+            "3 * histogram.threeStars + 4 * histogram.fourStars + 5 * histogram.fiveStars) / (:priorWeight + timesRated) " +
+            "where id in :ids and timesRated > 0")
+    int updateScores(@Param("ids") Collection<Long> ids, @Param("priorMean") double priorMean, @Param("priorWeight") double priorWeight);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Extension set score = (:priorWeight * :priorMean + histogram.oneStar + 2 * histogram.twoStars + " +
+            "3 * histogram.threeStars + 4 * histogram.fourStars + 5 * histogram.fiveStars) / (:priorWeight + timesRated) " +
+            "where timesRated > 0")
+    int updateAllScores(@Param("priorMean") double priorMean, @Param("priorWeight") double priorWeight);
+
     List<Extension> findByFeatured(boolean state);
 
     List<Extension> findByPending(boolean state);
@@ -2,7 +2,17 @@ package com.tick42.quicksilver.repositories.base;
 
 import com.tick42.quicksilver.models.File;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import javax.transaction.Transactional;
+import java.util.List;
 
 public interface FileRepository extends JpaRepository<File, Long> {
     File findByName(String name);
+
+    @Transactional
+    @Modifying
+    @Query(value = "update File set downloadCount = downloadCount + 1 where id in :ids")
+    int increaseDownloadCount(@Param("ids") List<Long> ids);
 }
@@ -0,0 +1,23 @@
+package com.tick42.quicksilver.repositories.base;
+
+import com.tick42.quicksilver.models.GitHubHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
+import java.util.List;
+
+public interface GitHubHistoryRepository extends JpaRepository<GitHubHistory, Long> {
+
+    List<GitHubHistory> findByGitHubIdInAndResolutionAndStartIn(Collection<Long> gitHubIds, GitHubHistory.Resolution resolution, Collection<Long> starts);
+
+    List<GitHubHistory> findByGitHubIdAndResolutionAndStartGreaterThanEqualOrderByStart(long gitHubId, GitHubHistory.Resolution resolution, long start);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "delete from GitHubHistory h where h.resolution = ?1 and h.start < ?2")
+    int deleteExpired(GitHubHistory.Resolution resolution, long start);
+
+    @Modifying(clearAutomatically = true)
+    @Query(value = "delete from GitHubHistory h where h.gitHubId = ?1")
+    int deleteByGitHubId(long gitHubId);
+}
@@ -2,7 +2,13 @@ package com.tick42.quicksilver.repositories.base;
 
 import com.tick42.quicksilver.models.GitHubModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.List;
 
 public interface GitHubRepository extends JpaRepository<GitHubModel, Long> {
 
+    @Query(value = "select e.github.id, e.file.downloadCount from Extension e where e.github is not null and e.file is not null")
+    List<Object[]> findDownloadCounts();
+
+    List<GitHubModel> findByUserAndRepo(String user, String repo);
 }
@@ -0,0 +1,33 @@
+package com.tick42.quicksilver.repositories.base;
+
+import com.tick42.quicksilver.models.Lease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import javax.transaction.Transactional;
+
+public interface LeaseRepository extends JpaRepository<Lease, String> {
+
+    // expiry is read and written against the database clock so skewed node clocks can't overlap leases
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update leases set owner = ?2, expires = floor(unix_timestamp(now(3)) * 1000) + ?3 " +
+            "where name = ?1 and (owner = ?2 or expires < floor(unix_timestamp(now(3)) * 1000))", nativeQuery = true)
+    int acquire(String name, String owner, long ttl);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "insert into leases (name, owner, expires, revision) " +
+            "values (?1, ?2, floor(unix_timestamp(now(3)) * 1000) + ?3, 0)", nativeQuery = true)
+    int create(String name, String owner, long ttl);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Lease l set l.expires = 0 where l.name = ?1 and l.owner = ?2")
+    int release(String name, String owner);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update Lease l set l.revision = l.revision + 1 where l.name = ?1")
+    int revise(String name);
+}
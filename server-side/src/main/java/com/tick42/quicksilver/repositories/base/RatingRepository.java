@@ -3,11 +3,35 @@ package com.tick42.quicksilver.repositories.base;
 import com.tick42.quicksilver.models.Rating;
 import com.tick42.quicksilver.models.RatingPK;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface RatingRepository extends JpaRepository<Rating, RatingPK> {
 
-    @Query(value = "select rating from Rating where extension like :extensionId and user like :userId")
-    int findRatingByUser(@Param("extensionId") int extensionId, @Param("userId")int userId);
+    @Query(value = "select r.rating from Rating r where r.extension = :extensionId and r.user = :userId")
+    Integer findRatingByUser(@Param("extensionId") long extensionId, @Param("userId") long userId);
+
+    @Query(value = "select rating from ratings where extension = :extensionId and user = :userId for update", nativeQuery = true)
+    Integer findRatingForUpdate(@Param("extensionId") long extensionId, @Param("userId") long userId);
+
+    @Query(value = "select r.extension, r.rating from Rating r where r.user = :userId and r.extension in :extensionIds")
+    List<Object[]> findRatingsByUser(@Param("userId") long userId, @Param("extensionIds") Collection<Long> extensionIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "select e.id, e.owner.id, r.rating, count(r.rating) from Rating r, Extension e " +
+            "where r.extension = e.id group by e.id, e.owner.id, r.rating order by e.id")
+    Stream<Object[]> streamHistograms();
+
+    @Modifying
+    @Query(value = "insert into ratings (extension, user, rating) values (:extensionId, :userId, :rating) " +
+            "on duplicate key update rating = values(rating)", nativeQuery = true)
+    int upsert(@Param("extensionId") long extensionId, @Param("userId") long userId, @Param("rating") int rating);
 }
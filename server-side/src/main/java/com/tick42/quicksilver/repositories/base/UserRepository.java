@@ -2,6 +2,10 @@ package com.tick42.quicksilver.repositories.base;
 
 import com.tick42.quicksilver.models.UserModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import javax.transaction.Transactional;
 
 import java.util.List;
 
@@ -9,4 +13,15 @@ public interface UserRepository extends JpaRepository<UserModel, Long> {
     UserModel findByUsername(String username);
 
     List<UserModel> findByActive(boolean state);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update UserModel u set u.ratingSum = u.ratingSum + :sum, u.timesRated = u.timesRated + :count, " +
+            "u.extensionsRated = (select count(e) from Extension e where e.owner.id = :id and e.timesRated > 0) where u.id = :id")
+    int updateRating(@Param("id") long id, @Param("sum") long sum, @Param("count") int count);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "update UserModel set ratingSum = 0, timesRated = 0, extensionsRated = 0")
+    int resetRatings();
 }
@@ -1,5 +1,6 @@
 package com.tick42.quicksilver.services;
 
+import com.tick42.quicksilver.aspects.RetryOnConflict;
 import com.tick42.quicksilver.exceptions.*;
 import com.tick42.quicksilver.models.*;
 import com.tick42.quicksilver.models.Dtos.PageDto;
@@ -12,6 +13,7 @@ import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.stereotype.Service;
 
 import javax.persistence.EntityNotFoundException;
+import javax.transaction.Transactional;
 import java.util.*;
 
 @Service
@@ -21,6 +23,7 @@ public class ExtensionServiceImpl implements ExtensionService {
     private List<Extension> mostRecent = Collections.synchronizedList(new ArrayList<>());
     private int mostRecentQueueLimit = 5;
     private int featuredLimit = 4;
+    private int topRatedLimit = 5;
 
     public ExtensionServiceImpl(ExtensionRepository extensionRepository) {
         this.extensionRepository = extensionRepository;
@@ -41,7 +44,14 @@ public class ExtensionServiceImpl implements ExtensionService {
     }
 
     @Override
-        public Extension update(Extension newExtension) {
+    public List<Extension> findPublishedByIds(List<Long> ids) {
+        return extensionRepository.findPublishedByIds(ids);
+    }
+
+    @Override
+    @RetryOnConflict
+    @Transactional
+    public Extension update(Extension newExtension) {
 
         Extension extension = extensionRepository.findById(newExtension.getId())
                 .orElseThrow(() -> new EntityNotFoundException("Extension not found."));
@@ -50,7 +60,28 @@ public class ExtensionServiceImpl implements ExtensionService {
             throw new UnauthorizedExtensionModificationException("You are not authorized to edit this extension.");
         }
 
-        return extensionRepository.save(newExtension);
+        extension.setName(newExtension.getName());
+        extension.setVersion(newExtension.getVersion());
+        extension.setDescription(newExtension.getDescription());
+        extension.setTags(newExtension.getTags());
+
+        GitHubModel github = newExtension.getGithub();
+        GitHubModel current = extension.getGithub();
+        if (github != null && (current == null || !github.getLink().equals(current.getLink()))) {
+            github.setId(current == null ? 0 : current.getId());
+            extension.setGithub(github);
+        }
+        if (newExtension.getImage() != null) {
+            extension.setImage(newExtension.getImage());
+        }
+        if (newExtension.getFile() != null) {
+            extension.setFile(newExtension.getFile());
+        }
+        if (newExtension.getCover() != null) {
+            extension.setCover(newExtension.getCover());
+        }
+
+        return extensionRepository.save(extension);
     }
 
     @Override
@@ -96,6 +127,14 @@ public class ExtensionServiceImpl implements ExtensionService {
         return extensionRepository.findAllOrderedBy("", PageRequest.of(0, mostDownloadedCount, Sort.Direction.DESC, "timesDownloaded"));
     }
 
+    @Override
+    public List<Extension> findTopRated(Integer topRatedCount){
+        if(topRatedCount == null){
+            topRatedCount = topRatedLimit;
+        }
+        return extensionRepository.findAllOrderedBy("", PageRequest.of(0, topRatedCount, Sort.Direction.DESC, "score"));
+    }
+
     @Override
     public long findTotalResults(String name){
         return extensionRepository.getTotalResults(name);
@@ -141,14 +180,19 @@ public class ExtensionServiceImpl implements ExtensionService {
             case "downloads":
                 extensions = extensionRepository.findAllOrderedBy(name, PageRequest.of(page, pageSize, Sort.Direction.DESC, "timesDownloaded"));
                 break;
+            case "rating":
+                extensions = extensionRepository.findAllOrderedBy(name, PageRequest.of(page, pageSize, Sort.Direction.DESC, "score"));
+                break;
             default:
-                throw new InvalidParameterException("\"" + orderBy + "\" is not a valid parameter. Use \"date\", \"commits\", \"name\" or \"downloads\".");
+                throw new InvalidParameterException("\"" + orderBy + "\" is not a valid parameter. Use \"date\", \"commits\", \"name\", \"downloads\" or \"rating\".");
         }
 
         return new PageDto<>(extensions, page, totalPages, totalResults);
     }
 
     @Override
+    @RetryOnConflict
+    @Transactional
     public Extension setPublishedState(long extensionId, String state) {
 
         Extension extension = extensionRepository.findById(extensionId)
@@ -173,6 +217,8 @@ public class ExtensionServiceImpl implements ExtensionService {
     }
 
     @Override
+    @RetryOnConflict
+    @Transactional
     public Extension setFeaturedState(long extensionId, String state) {
 
         Extension extension = extensionRepository.findById(extensionId)
@@ -0,0 +1,212 @@
+package com.tick42.quicksilver.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+@ConfigurationProperties(prefix = "file.cache")
+public class FileCache {
+    private long capacity = 64 * 1024 * 1024;
+    private long maxEntrySize = 1024 * 1024;
+    private long size;
+    private long generation;
+
+    private final Map<String, ByteBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> oversized = new HashSet<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FileCache(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("files.cache.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("files.cache.misses", misses, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("files.cache.evictions", evictions, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("files.cache.hit.ratio", this, FileCache::getHitRate).register(meterRegistry);
+        Gauge.builder("files.cache.size", this, FileCache::getSize).baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Looks the name up before touching the filesystem. Returns null when the file is missing or
+     * too large to cache; oversized files are remembered so they don't count as misses again.
+     */
+    public Resource get(String name, Path path) throws IOException {
+        ByteBuffer buffer;
+        long loadedAt;
+        synchronized (this) {
+            buffer = entries.get(name);
+            if (buffer == null && oversized.contains(name)) {
+                return null;
+            }
+            loadedAt = generation;
+        }
+
+        if (buffer != null) {
+            hits.incrementAndGet();
+            return new ByteBufferResource(name, buffer.duplicate());
+        }
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        try {
+            long fileSize = channel.size();
+            if (fileSize > maxEntrySize || fileSize > capacity) {
+                markOversized(name, loadedAt);
+                return null;
+            }
+
+            misses.incrementAndGet();
+            buffer = load(channel, fileSize);
+        } finally {
+            channel.close();
+        }
+        put(name, buffer, loadedAt);
+
+        return new ByteBufferResource(name, buffer.duplicate());
+    }
+
+    public synchronized void invalidate(String name) {
+        generation++;
+        oversized.remove(name);
+        ByteBuffer removed = entries.remove(name);
+        if (removed != null) {
+            size -= removed.capacity();
+        }
+    }
+
+    private ByteBuffer load(FileChannel channel, long fileSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) fileSize);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) break;
+        }
+        buffer.flip();
+
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private synchronized void markOversized(String name, long loadedAt) {
+        if (loadedAt == generation) {
+            oversized.add(name);
+        }
+    }
+
+    private synchronized void put(String name, ByteBuffer buffer, long loadedAt) {
+        if (loadedAt != generation) {
+            return;
+        }
+
+        ByteBuffer previous = entries.remove(name);
+        if (previous != null) {
+            size -= previous.capacity();
+        }
+
+        Iterator<ByteBuffer> eldest = entries.values().iterator();
+        while (size + buffer.capacity() > capacity && eldest.hasNext()) {
+            size -= eldest.next().capacity();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+
+        entries.put(name, buffer);
+        size += buffer.capacity();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(long capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(long maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    private static class ByteBufferResource extends AbstractResource {
+        private final String name;
+        private final ByteBuffer buffer;
+
+        ByteBufferResource(String name, ByteBuffer buffer) {
+            this.name = name;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public String getFilename() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Cached file [" + name + "]";
+        }
+
+        @Override
+        public long contentLength() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            ByteBuffer source = buffer.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return source.hasRemaining() ? source.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) {
+                    if (!source.hasRemaining()) {
+                        return -1;
+                    }
+                    int count = Math.min(length, source.remaining());
+                    source.get(bytes, offset, count);
+                    return count;
+                }
+
+                @Override
+                public int available() {
+                    return source.remaining();
+                }
+            };
+        }
+    }
+}
@@ -1,28 +1,49 @@
 package com.tick42.quicksilver.services;
 
 import com.tick42.quicksilver.exceptions.*;
+import com.tick42.quicksilver.models.Extension;
 import com.tick42.quicksilver.models.File;
 import com.tick42.quicksilver.repositories.base.FileRepository;
 import com.tick42.quicksilver.services.base.FileService;
+import com.tick42.quicksilver.services.base.ImageService;
 import org.apache.commons.io.FilenameUtils;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.PathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.zip.*;
 
 @Service
 public class FileServiceImpl implements FileService {
+    private static final Set<String> compressedTypes = new HashSet<>(Arrays.asList(
+            "zip", "jar", "vsix", "nupkg", "gz", "tgz", "bz2", "xz", "7z", "rar",
+            "png", "jpg", "jpeg", "gif", "webp", "mp3", "mp4", "woff", "woff2"));
+    private static final String compressedSuffix = ".gz";
+    private static final int sampleSize = 64 * 1024;
+    private static final int minCompressedSize = 1024;
+    private static final double maxCompressionRatio = 0.8;
+
     private final Path fileLocation;
     private final FileRepository fileRepository;
+    private final FileCache fileCache;
+    private final ImageService imageService;
 
-    public FileServiceImpl(FileRepository fileRepository) {
+    public FileServiceImpl(FileRepository fileRepository, FileCache fileCache, ImageService imageService) {
         this.fileRepository = fileRepository;
+        this.fileCache = fileCache;
+        this.imageService = imageService;
         this.fileLocation = Paths.get("./uploads")
                 .toAbsolutePath().normalize();
 
@@ -45,6 +66,10 @@ public class FileServiceImpl implements FileService {
 
             save(file, receivedFile);
 
+            try (InputStream inputStream = openStored(file.getName())) {
+                file.setPlaceholder(imageService.generatePlaceholder(inputStream));
+            }
+
             return file;
 
         } catch (IOException e) {
@@ -52,30 +77,191 @@ public class FileServiceImpl implements FileService {
         }
     }
 
-    private void save(File image, MultipartFile receivedFile) throws IOException {
-        Path targetLocation = this.fileLocation.resolve(image.getName());
-        Files.copy(receivedFile.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+    @Override
+    public File store(MultipartFile receivedFile, String name) {
+        File file = generate(receivedFile, name);
+        if (file.getType() == null) {
+            file.setType("application/octet-stream");
+        }
+
+        try {
+            save(file, receivedFile);
+            return file;
+        } catch (IOException e) {
+            throw new FileStorageException("Couldn't store the file.");
+        }
+    }
+
+    private void save(File file, MultipartFile receivedFile) throws IOException {
+        Path targetLocation = this.fileLocation.resolve(file.getName());
+        Path compressedLocation = this.fileLocation.resolve(file.getName() + compressedSuffix);
+
+        if (isCompressible(file.getName(), receivedFile)) {
+            Path temp = Files.createTempFile(this.fileLocation, file.getName(), ".tmp");
+            try (InputStream inputStream = receivedFile.getInputStream();
+                 OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(temp), 8192)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, read);
+                }
+            }
+            Files.move(temp, compressedLocation, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(targetLocation);
+        } else {
+            Files.copy(receivedFile.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(compressedLocation);
+        }
+
+        fileCache.invalidate(file.getName());
+    }
+
+    private boolean isCompressible(String fileName, MultipartFile receivedFile) throws IOException {
+        if (receivedFile.getSize() < minCompressedSize ||
+                compressedTypes.contains(FilenameUtils.getExtension(fileName).toLowerCase())) {
+            return false;
+        }
+
+        byte[] sample = new byte[sampleSize];
+        int sampled = 0;
+        try (InputStream inputStream = receivedFile.getInputStream()) {
+            int read;
+            while (sampled < sample.length && (read = inputStream.read(sample, sampled, sample.length - sampled)) != -1) {
+                sampled += read;
+            }
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(sample, 0, sampled);
+            deflater.finish();
+
+            byte[] output = new byte[sampleSize];
+            long compressed = 0;
+            while (!deflater.finished()) {
+                compressed += deflater.deflate(output);
+            }
+
+            return compressed < sampled * maxCompressionRatio;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private InputStream openStored(String fileName) throws IOException {
+        Path filePath = this.fileLocation.resolve(fileName).normalize();
+        if (Files.exists(filePath)) {
+            return Files.newInputStream(filePath);
+        }
+
+        Path compressedPath = this.fileLocation.resolve(fileName + compressedSuffix).normalize();
+        if (Files.exists(compressedPath)) {
+            return new GZIPInputStream(Files.newInputStream(compressedPath), 8192);
+        }
+
+        throw new FileNotFoundUncheckedException("File not found");
+    }
+
+    @Override
+    public Resource getCompressedAsResource(String fileName) {
+        Path compressedPath = this.fileLocation.resolve(fileName + compressedSuffix).normalize();
+        if (!Files.isRegularFile(compressedPath) || Files.exists(this.fileLocation.resolve(fileName).normalize())) {
+            return null;
+        }
+
+        return new PathResource(compressedPath);
     }
 
     @Override
     public Resource getAsResource(String fileName){
         try {
             Path filePath = this.fileLocation.resolve(fileName).normalize();
+            Resource cached = fileCache.get(fileName, filePath);
+            if (cached != null) {
+                return cached;
+            }
+
             Resource resource = new UrlResource(filePath.toUri());
             if (resource.exists()) {
                 return resource;
+            } else if (Files.isRegularFile(this.fileLocation.resolve(fileName + compressedSuffix).normalize())) {
+                return new InputStreamResource(openStored(fileName), fileName);
             } else {
                 throw new FileNotFoundUncheckedException("File not found");
             }
         } catch (MalformedURLException e) {
             throw new FileNotFoundUncheckedException("File not found " + e);
+        } catch (IOException e) {
+            throw new FileStorageException("Couldn't read the file.");
         }
     }
 
     @Override
     public File increaseCount(File file){
+        fileRepository.increaseDownloadCount(Collections.singletonList(file.getId()));
         file.setDownloadCount(file.getDownloadCount() + 1);
-        return fileRepository.save(file);
+        return file;
+    }
+
+    @Override
+    public void increaseCount(List<File> files){
+        if (files.isEmpty()) {
+            return;
+        }
+
+        fileRepository.increaseDownloadCount(files.stream()
+                .map(File::getId)
+                .collect(Collectors.toList()));
+        files.forEach(file -> file.setDownloadCount(file.getDownloadCount() + 1));
+    }
+
+    @Override
+    public void writeBundle(List<Extension> extensions, OutputStream outputStream) throws IOException {
+        Set<String> entryNames = new HashSet<>();
+        byte[] buffer = new byte[8192];
+
+        try (ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            for (Extension extension : extensions) {
+                File file = extension.getFile();
+                String fileType = FilenameUtils.getExtension(file.getName()).toLowerCase();
+
+                String entryName = bundleEntryName(extension.getName(), fileType);
+                for (int i = 2; !entryNames.add(entryName); i++) {
+                    entryName = bundleEntryName(extension.getName() + " (" + i + ")", fileType);
+                }
+
+                ZipEntry entry = new ZipEntry(entryName);
+                if (compressedTypes.contains(fileType)) {
+                    CRC32 crc = new CRC32();
+                    long size = 0;
+                    try (InputStream inputStream = openStored(file.getName())) {
+                        int read;
+                        while ((read = inputStream.read(buffer)) != -1) {
+                            crc.update(buffer, 0, read);
+                            size += read;
+                        }
+                    }
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(size);
+                    entry.setCompressedSize(size);
+                    entry.setCrc(crc.getValue());
+                }
+
+                zip.putNextEntry(entry);
+                try (InputStream inputStream = openStored(file.getName())) {
+                    int read;
+                    while ((read = inputStream.read(buffer)) != -1) {
+                        zip.write(buffer, 0, read);
+                    }
+                }
+                zip.closeEntry();
+            }
+        }
+    }
+
+    private String bundleEntryName(String name, String fileType) {
+        String entryName = name.replaceAll("[\\\\/:*?\"<>|]", "_");
+        return fileType.isEmpty() ? entryName : entryName + "." + fileType;
     }
 
     @Override
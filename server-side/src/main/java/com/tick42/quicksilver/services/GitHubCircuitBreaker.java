@@ -0,0 +1,135 @@
+package com.tick42.quicksilver.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+@Component
+@ConfigurationProperties(prefix = "github.breaker")
+public class GitHubCircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final LongSupplier clock;
+    private final AtomicLong rejected = new AtomicLong();
+
+    private int failureThreshold = 5;
+    private long openDuration = 30000;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public GitHubCircuitBreaker(MeterRegistry meterRegistry) {
+        this(meterRegistry, System::currentTimeMillis);
+    }
+
+    GitHubCircuitBreaker(MeterRegistry meterRegistry, LongSupplier clock) {
+        this.clock = clock;
+
+        Gauge.builder("github.breaker.state", this, breaker -> breaker.getState().ordinal()).register(meterRegistry);
+        FunctionCounter.builder("github.breaker.rejected", rejected, AtomicLong::get).register(meterRegistry);
+    }
+
+    public synchronized Permit tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openDuration) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            state = State.HALF_OPEN;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                rejected.incrementAndGet();
+                return null;
+            }
+            trialInFlight = true;
+            return new Permit(true);
+        }
+
+        return new Permit(false);
+    }
+
+    private synchronized void recordSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void recordFailure(boolean trial) {
+        if (trial || state == State.HALF_OPEN || ++failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            failures = 0;
+        }
+        if (trial) {
+            trialInFlight = false;
+        }
+    }
+
+    private synchronized void release(boolean trial) {
+        if (trial) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    public void setOpenDuration(long openDuration) {
+        this.openDuration = openDuration;
+    }
+
+    public class Permit {
+        private final boolean trial;
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private Permit(boolean trial) {
+            this.trial = trial;
+        }
+
+        public void success() {
+            if (settled.compareAndSet(false, true)) {
+                recordSuccess();
+            }
+        }
+
+        public void failure() {
+            if (settled.compareAndSet(false, true)) {
+                recordFailure(trial);
+            }
+        }
+
+        public void release() {
+            if (settled.compareAndSet(false, true)) {
+                GitHubCircuitBreaker.this.release(trial);
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.tick42.quicksilver.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.Cache;
+import okhttp3.OkHttpClient;
+import org.kohsuke.github.HttpConnector;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+@Component
+@ConfigurationProperties(prefix = "github.cache")
+public class GitHubConnector implements HttpConnector {
+    private String directory = "./github-cache";
+    private long size = 50 * 1024 * 1024;
+
+    private final MeterRegistry meterRegistry;
+    private Cache cache;
+    @SuppressWarnings("deprecation") // github-api 1.95 only talks HttpURLConnection, so OkUrlFactory is the only bridge to okhttp
+    private okhttp3.OkUrlFactory urlFactory;
+
+    public GitHubConnector(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    @SuppressWarnings("deprecation") // see urlFactory
+    public void init() {
+        cache = new Cache(new File(directory), size);
+        urlFactory = new okhttp3.OkUrlFactory(new OkHttpClient.Builder()
+                .cache(cache)
+                .build());
+
+        FunctionCounter.builder("github.cache.requests", cache, Cache::requestCount).register(meterRegistry);
+        FunctionCounter.builder("github.cache.hits", cache, Cache::hitCount).register(meterRegistry);
+        FunctionCounter.builder("github.cache.network", cache, Cache::networkCount).register(meterRegistry);
+        Gauge.builder("github.cache.hit.ratio", this, GitHubConnector::getHitRate).register(meterRegistry);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation") // see urlFactory
+    public HttpURLConnection connect(URL url) throws IOException {
+        return urlFactory.open(url);
+    }
+
+    public double getHitRate() {
+        int requests = cache.requestCount();
+        return requests == 0 ? 0 : (double) cache.hitCount() / requests;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        cache.close();
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+}
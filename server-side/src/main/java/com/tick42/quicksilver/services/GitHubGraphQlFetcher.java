@@ -0,0 +1,256 @@
+package com.tick42.quicksilver.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tick42.quicksilver.models.GitHubModel;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "github.graphql")
+public class GitHubGraphQlFetcher {
+    private static final int connectionsPerRepo = 3;
+    private static final int unreachable = -1;
+    private static final int unauthorized = -2;
+    private static final int forbidden = -3;
+    private static final String repositoryFields = "stargazers { totalCount } forkCount " +
+            "pullRequests(states: OPEN) { totalCount } issues(states: OPEN) { totalCount } " +
+            "defaultBranchRef { target { ... on Commit { committedDate } } }";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RestTemplate restTemplate;
+
+    private boolean enabled = true;
+    private String endpoint = "https://api.github.com/graphql";
+    private int batchSize = 50;
+    private int maxCost = 2;
+    private int timeout = 30000;
+
+    @PostConstruct
+    public void init() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        restTemplate = new RestTemplate(requestFactory);
+    }
+
+    public int estimateCost(int repositories) {
+        int chunkSize = initialChunkSize();
+        return (repositories + chunkSize - 1) / chunkSize * maxCost;
+    }
+
+    public Result fetch(String token, List<GitHubModel> gitHubModels) {
+        List<GitHubModel> failed = new ArrayList<>();
+        int chunkSize = initialChunkSize();
+        int spent = 0;
+
+        for (int i = 0; i < gitHubModels.size(); ) {
+            List<GitHubModel> batch = gitHubModels.subList(i, Math.min(i + chunkSize, gitHubModels.size()));
+            int cost = fetchBatch(token, batch, failed);
+            i += batch.size();
+
+            if (cost < 0) {
+                failed.addAll(gitHubModels.subList(i, gitHubModels.size()));
+                return new Result(failed, spent, outcomeOf(cost));
+            }
+            spent += cost;
+            if (cost > maxCost) {
+                chunkSize = Math.max(1, chunkSize * maxCost / cost);
+            }
+        }
+
+        return new Result(failed, spent, Outcome.COMPLETED);
+    }
+
+    private int initialChunkSize() {
+        return Math.max(1, Math.min(batchSize, maxCost * 100 / connectionsPerRepo));
+    }
+
+    private static Outcome outcomeOf(int cost) {
+        switch (cost) {
+            case unauthorized:
+                return Outcome.UNAUTHORIZED;
+            case forbidden:
+                return Outcome.FORBIDDEN;
+            default:
+                return Outcome.UNREACHABLE;
+        }
+    }
+
+    /**
+     * Returns the points the batch cost, or one of the negative codes when the rest of the cycle
+     * has to stop. The batch's repositories are added to {@code failed} in that case.
+     */
+    private int fetchBatch(String token, List<GitHubModel> batch, List<GitHubModel> failed) {
+        JsonNode data;
+        try {
+            data = post(token, batch).path("data");
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED || e.getStatusCode() == HttpStatus.FORBIDDEN) {
+                failed.addAll(batch);
+                return e.getStatusCode() == HttpStatus.UNAUTHORIZED ? unauthorized : forbidden;
+            }
+            data = null;
+        } catch (ResourceAccessException e) {
+            failed.addAll(batch);
+            return unreachable;
+        } catch (RestClientException | IOException e) {
+            data = null;
+        }
+
+        if (data == null || data.isMissingNode() || data.isNull()) {
+            if (batch.size() == 1) {
+                failed.addAll(batch);
+                return 0;
+            }
+
+            int middle = batch.size() / 2;
+            int first = fetchBatch(token, batch.subList(0, middle), failed);
+            if (first < 0) {
+                failed.addAll(batch.subList(middle, batch.size()));
+                return first;
+            }
+            int second = fetchBatch(token, batch.subList(middle, batch.size()), failed);
+            return second < 0 ? second : first + second;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            JsonNode repository = data.path("r" + i);
+            if (repository.isMissingNode() || repository.isNull()) {
+                failed.add(batch.get(i));
+            } else {
+                apply(batch.get(i), repository);
+            }
+        }
+
+        return data.path("rateLimit").path("cost").asInt(0);
+    }
+
+    private JsonNode post(String token, List<GitHubModel> batch) throws IOException {
+        StringBuilder declarations = new StringBuilder();
+        StringBuilder selections = new StringBuilder();
+        Map<String, Object> variables = new HashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+            GitHubModel gitHubModel = batch.get(i);
+            if (i > 0) {
+                declarations.append(", ");
+            }
+            declarations.append("$o").append(i).append(": String!, $n").append(i).append(": String!");
+            selections.append("r").append(i).append(": repository(owner: $o").append(i)
+                    .append(", name: $n").append(i).append(") { ").append(repositoryFields).append(" } ");
+            variables.put("o" + i, gitHubModel.getUser());
+            variables.put("n" + i, gitHubModel.getRepo());
+        }
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("query", "query(" + declarations + ") { rateLimit { cost remaining } " + selections + "}");
+        body.put("variables", variables);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.AUTHORIZATION, "bearer " + token);
+
+        String response = restTemplate.postForObject(endpoint, new HttpEntity<>(body, headers), String.class);
+        return objectMapper.readTree(response);
+    }
+
+    private void apply(GitHubModel gitHubModel, JsonNode repository) {
+        String committedDate = repository.path("defaultBranchRef").path("target").path("committedDate").asText(null);
+
+        gitHubModel.setPullRequests(repository.path("pullRequests").path("totalCount").asInt());
+        gitHubModel.setOpenIssues(repository.path("issues").path("totalCount").asInt());
+        gitHubModel.setStars(repository.path("stargazers").path("totalCount").asInt());
+        gitHubModel.setForks(repository.path("forkCount").asInt());
+        gitHubModel.setLastCommit(committedDate == null ? null : ZonedDateTime.parse(committedDate)
+                .withZoneSameInstant(ZoneId.systemDefault())
+                .toLocalDateTime());
+        gitHubModel.setLastSuccess(LocalDateTime.now());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getMaxCost() {
+        return maxCost;
+    }
+
+    public void setMaxCost(int maxCost) {
+        this.maxCost = maxCost;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    public enum Outcome {
+        COMPLETED, UNREACHABLE, UNAUTHORIZED, FORBIDDEN
+    }
+
+    public static class Result {
+        private final List<GitHubModel> failed;
+        private final int cost;
+        private final Outcome outcome;
+
+        Result(List<GitHubModel> failed, int cost, Outcome outcome) {
+            this.failed = failed;
+            this.cost = cost;
+            this.outcome = outcome;
+        }
+
+        public List<GitHubModel> getFailed() {
+            return failed;
+        }
+
+        public int getCost() {
+            return cost;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.aspects.RetryOnConflict;
+import com.tick42.quicksilver.models.GitHubHistory;
+import com.tick42.quicksilver.models.GitHubModel;
+import com.tick42.quicksilver.repositories.base.GitHubHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PreDestroy;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+@Component
+@ConfigurationProperties(prefix = "github.history")
+public class GitHubHistoryStore {
+    private static final long day = 24 * 60 * 60 * 1000;
+    private static final int closeAttempts = 3;
+
+    private final GitHubHistoryRepository gitHubHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LongSupplier clock;
+    private final Map<Long, List<GitHubHistory.Sample>> pending = new HashMap<>();
+    private final Counter dropped;
+    private int size;
+
+    private int capacity = 10000;
+    private long flushInterval = 5000;
+    private long retentionInterval = 60 * 60 * 1000;
+    private long rawRetention = 2 * day;
+    private long hourlyRetention = 30 * day;
+    private long dailyRetention = 730 * day;
+
+    @Autowired
+    public GitHubHistoryStore(GitHubHistoryRepository gitHubHistoryRepository, MeterRegistry meterRegistry,
+                              PlatformTransactionManager transactionManager) {
+        this(gitHubHistoryRepository, meterRegistry, transactionManager, System::currentTimeMillis);
+    }
+
+    GitHubHistoryStore(GitHubHistoryRepository gitHubHistoryRepository, MeterRegistry meterRegistry,
+                       PlatformTransactionManager transactionManager, LongSupplier clock) {
+        this.gitHubHistoryRepository = gitHubHistoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+
+        Gauge.builder("github.history.pending", this, GitHubHistoryStore::getSize).register(meterRegistry);
+        dropped = meterRegistry.counter("github.history.dropped");
+    }
+
+    public void record(GitHubModel gitHubModel) {
+        LocalDateTime lastSuccess = gitHubModel.getLastSuccess();
+        LocalDateTime lastWebhook = gitHubModel.getLastWebhook();
+        if (lastWebhook != null && (lastSuccess == null || lastWebhook.isAfter(lastSuccess))) {
+            lastSuccess = lastWebhook;
+        }
+        LocalDateTime lastFail = gitHubModel.getLastFail();
+        if (gitHubModel.getId() == 0 || lastSuccess == null || (lastFail != null && lastFail.isAfter(lastSuccess))) {
+            return;
+        }
+
+        GitHubHistory.Sample sample = new GitHubHistory.Sample(toMinute(lastSuccess), gitHubModel.getPullRequests(),
+                gitHubModel.getOpenIssues(), gitHubModel.getLastCommit() == null ? 0 : toMinute(gitHubModel.getLastCommit()));
+
+        synchronized (this) {
+            if (size >= capacity) {
+                dropped.increment();
+                return;
+            }
+            pending.computeIfAbsent(gitHubModel.getId(), id -> new ArrayList<>()).add(sample);
+            size++;
+        }
+    }
+
+    /**
+     * Every node flushes the samples it recorded, so two nodes can touch the same segment.
+     * Segments are versioned and a conflicting flush rolls back, requeues and retries.
+     */
+    @RetryOnConflict
+    @Transactional
+    @Scheduled(fixedDelayString = "${github.history.flushInterval:5000}")
+    public void flush() {
+        Map<Long, List<GitHubHistory.Sample>> drained;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            drained = new HashMap<>(pending);
+            pending.clear();
+            size = 0;
+        }
+
+        boolean synchronization = TransactionSynchronizationManager.isSynchronizationActive();
+        if (synchronization) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                        requeue(drained);
+                    }
+                }
+            });
+        }
+
+        try {
+            drained.values().forEach(samples -> samples.sort(Comparator.comparingLong(GitHubHistory.Sample::getTime)));
+            for (GitHubHistory.Resolution resolution : GitHubHistory.Resolution.values()) {
+                append(resolution, drained);
+            }
+        } catch (RuntimeException e) {
+            if (!synchronization) {
+                requeue(drained);
+            }
+            throw e;
+        }
+    }
+
+    private synchronized void requeue(Map<Long, List<GitHubHistory.Sample>> drained) {
+        drained.forEach((id, samples) -> {
+            pending.computeIfAbsent(id, k -> new ArrayList<>()).addAll(0, samples);
+            size += samples.size();
+        });
+    }
+
+    private void append(GitHubHistory.Resolution resolution, Map<Long, List<GitHubHistory.Sample>> samples) {
+        Set<Long> starts = new HashSet<>();
+        samples.values().forEach(list -> list.forEach(sample -> starts.add(resolution.segment(sample.getTime()))));
+
+        Map<String, GitHubHistory> segments = new LinkedHashMap<>();
+        gitHubHistoryRepository.findByGitHubIdInAndResolutionAndStartIn(samples.keySet(), resolution, starts)
+                .forEach(segment -> segments.put(segment.getGitHubId() + ":" + segment.getStart(), segment));
+
+        Map<String, GitHubHistory> changed = new LinkedHashMap<>();
+        samples.forEach((id, list) -> list.forEach(sample -> {
+            long start = resolution.segment(sample.getTime());
+            String key = id + ":" + start;
+            GitHubHistory segment = segments.computeIfAbsent(key, k -> new GitHubHistory(id, resolution, start));
+            if (segment.append(sample)) {
+                changed.put(key, segment);
+            }
+        }));
+
+        if (!changed.isEmpty()) {
+            try {
+                gitHubHistoryRepository.saveAll(changed.values());
+            } catch (DataIntegrityViolationException e) {
+                // another node inserted the same segment first; retry against its row
+                throw new OptimisticLockingFailureException("GitHub history segment was created concurrently.", e);
+            }
+        }
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${github.history.retentionInterval:3600000}")
+    public void retain() {
+        long now = TimeUnit.MILLISECONDS.toMinutes(clock.getAsLong());
+        for (GitHubHistory.Resolution resolution : GitHubHistory.Resolution.values()) {
+            long cutoff = now - TimeUnit.MILLISECONDS.toMinutes(getRetention(resolution));
+            gitHubHistoryRepository.deleteExpired(resolution, resolution.segment(cutoff));
+        }
+    }
+
+    public List<GitHubHistory.Sample> getSparkline(long gitHubId, int days) {
+        long maxDays = TimeUnit.MILLISECONDS.toDays(dailyRetention);
+        long minutes = TimeUnit.DAYS.toMinutes(Math.max(1, Math.min(days, maxDays)));
+
+        GitHubHistory.Resolution resolution = minutes <= GitHubHistory.Resolution.HOURLY.getSpan() &&
+                minutes <= TimeUnit.MILLISECONDS.toMinutes(hourlyRetention) ? GitHubHistory.Resolution.HOURLY : GitHubHistory.Resolution.DAILY;
+        long from = resolution.bucket(TimeUnit.MILLISECONDS.toMinutes(clock.getAsLong()) - minutes);
+
+        List<GitHubHistory.Sample> samples = new ArrayList<>();
+        gitHubHistoryRepository.findByGitHubIdAndResolutionAndStartGreaterThanEqualOrderByStart(gitHubId, resolution, resolution.segment(from))
+                .forEach(segment -> segment.getSamples().forEach(sample -> {
+                    if (sample.getTime() >= from) {
+                        samples.add(sample);
+                    }
+                }));
+
+        return samples;
+    }
+
+    @Transactional
+    public void delete(long gitHubId) {
+        synchronized (this) {
+            List<GitHubHistory.Sample> samples = pending.remove(gitHubId);
+            if (samples != null) {
+                size -= samples.size();
+            }
+        }
+        gitHubHistoryRepository.deleteByGitHubId(gitHubId);
+    }
+
+    @PreDestroy
+    public void close() {
+        // flush is called on the bean itself here, so its @RetryOnConflict doesn't apply
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.execute(status -> {
+                    flush();
+                    return null;
+                });
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= closeAttempts) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private long getRetention(GitHubHistory.Resolution resolution) {
+        switch (resolution) {
+            case RAW:
+                return rawRetention;
+            case HOURLY:
+                return hourlyRetention;
+            default:
+                return dailyRetention;
+        }
+    }
+
+    private static long toMinute(LocalDateTime dateTime) {
+        return TimeUnit.MILLISECONDS.toMinutes(dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    public synchronized int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public long getRetentionInterval() {
+        return retentionInterval;
+    }
+
+    public void setRetentionInterval(long retentionInterval) {
+        this.retentionInterval = retentionInterval;
+    }
+
+    public long getRawRetention() {
+        return rawRetention;
+    }
+
+    public void setRawRetention(long rawRetention) {
+        this.rawRetention = rawRetention;
+    }
+
+    public long getHourlyRetention() {
+        return hourlyRetention;
+    }
+
+    public void setHourlyRetention(long hourlyRetention) {
+        this.hourlyRetention = hourlyRetention;
+    }
+
+    public long getDailyRetention() {
+        return dailyRetention;
+    }
+
+    public void setDailyRetention(long dailyRetention) {
+        this.dailyRetention = dailyRetention;
+    }
+}
@@ -0,0 +1,160 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.Lease;
+import com.tick42.quicksilver.repositories.base.LeaseRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Elects the node that runs the scheduled GitHub refresh through a row in the leases table.
+ * The leader renews the row on every heartbeat; any node takes it over once it has expired.
+ * Expiry is judged by the database clock, while a node only trusts its own leadership for
+ * ttl - heartbeat measured locally from the start of its last successful renewal.
+ */
+@Component
+@ConfigurationProperties(prefix = "github.leader")
+public class GitHubLeaderElection {
+    private final LeaseRepository leaseRepository;
+    private final LongSupplier clock;
+    private final List<Consumer<Boolean>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile long validUntil;
+    private boolean leader;
+    private long revision = -1;
+
+    private String name = "github-refresh";
+    private String node = defaultNode();
+    private long ttl = 30 * 1000;
+    private long heartbeat = 10 * 1000;
+
+    @Autowired
+    public GitHubLeaderElection(LeaseRepository leaseRepository, MeterRegistry meterRegistry) {
+        this(leaseRepository, meterRegistry, System::currentTimeMillis);
+    }
+
+    GitHubLeaderElection(LeaseRepository leaseRepository, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.leaseRepository = leaseRepository;
+        this.clock = clock;
+
+        Gauge.builder("github.leader", this, election -> election.isLeader() ? 1 : 0).register(meterRegistry);
+    }
+
+    public void addListener(Consumer<Boolean> listener) {
+        listeners.add(listener);
+    }
+
+    public boolean isLeader() {
+        return clock.getAsLong() < validUntil;
+    }
+
+    @Scheduled(fixedDelayString = "${github.leader.heartbeat:10000}")
+    public void heartbeat() {
+        long now = clock.getAsLong();
+        boolean acquired;
+        long current = revision;
+        try {
+            acquired = acquire();
+            current = leaseRepository.findById(name).map(Lease::getRevision).orElse(0L);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            acquired = false;
+        }
+
+        validUntil = acquired ? now + ttl - heartbeat : 0;
+
+        boolean changed;
+        synchronized (this) {
+            changed = acquired != leader || current != revision;
+            leader = acquired;
+            revision = current;
+        }
+
+        if (changed) {
+            for (Consumer<Boolean> listener : listeners) {
+                listener.accept(acquired);
+            }
+        }
+    }
+
+    private boolean acquire() {
+        if (leaseRepository.acquire(name, node, ttl) == 1) {
+            return true;
+        }
+        if (leaseRepository.existsById(name)) {
+            return false;
+        }
+
+        try {
+            return leaseRepository.create(name, node, ttl) == 1;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+
+    public void revise() {
+        leaseRepository.revise(name);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (isLeader()) {
+            validUntil = 0;
+            leaseRepository.release(name, node);
+        }
+    }
+
+    private static String defaultNode() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public void setNode(String node) {
+        this.node = node;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getHeartbeat() {
+        return heartbeat;
+    }
+
+    public void setHeartbeat(long heartbeat) {
+        this.heartbeat = heartbeat;
+    }
+}
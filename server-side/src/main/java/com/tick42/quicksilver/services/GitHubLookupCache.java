@@ -0,0 +1,141 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.GitHubModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+@Component
+@ConfigurationProperties(prefix = "github.lookup")
+public class GitHubLookupCache {
+    private long ttl = 10 * 60 * 1000;
+    private long negativeTtl = 30 * 1000;
+    private int maxEntries = 1000;
+
+    private final LongSupplier clock;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<String, CompletableFuture<GitHubModel>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    @Autowired
+    public GitHubLookupCache(MeterRegistry meterRegistry) {
+        this(meterRegistry, System::currentTimeMillis);
+    }
+
+    GitHubLookupCache(MeterRegistry meterRegistry, LongSupplier clock) {
+        this.clock = clock;
+
+        FunctionCounter.builder("github.lookup.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("github.lookup.misses", misses, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("github.lookup.coalesced", coalesced, AtomicLong::get).register(meterRegistry);
+    }
+
+    public GitHubModel get(String key, Supplier<GitHubModel> loader) {
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expires > clock.getAsLong()) {
+                hits.incrementAndGet();
+                return copy(entry.gitHubModel);
+            }
+        }
+
+        CompletableFuture<GitHubModel> created = new CompletableFuture<>();
+        CompletableFuture<GitHubModel> flight = inFlight.putIfAbsent(key, created);
+        if (flight == null) {
+            misses.incrementAndGet();
+            try {
+                GitHubModel gitHubModel = loader.get();
+                put(key, copy(gitHubModel));
+                created.complete(gitHubModel);
+                return gitHubModel;
+            } catch (RuntimeException e) {
+                created.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, created);
+            }
+        }
+
+        coalesced.incrementAndGet();
+        try {
+            return copy(flight.join());
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    private synchronized void put(String key, GitHubModel gitHubModel) {
+        long expires = clock.getAsLong() + (gitHubModel.getFailMessage() == null ? ttl : negativeTtl);
+        entries.put(key, new Entry(gitHubModel, expires));
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private static GitHubModel copy(GitHubModel gitHubModel) {
+        GitHubModel copy = new GitHubModel(gitHubModel.getLink(), gitHubModel.getUser(), gitHubModel.getRepo());
+        copy.setPullRequests(gitHubModel.getPullRequests());
+        copy.setOpenIssues(gitHubModel.getOpenIssues());
+        copy.setStars(gitHubModel.getStars());
+        copy.setForks(gitHubModel.getForks());
+        copy.setLastCommit(gitHubModel.getLastCommit());
+        copy.setLastSuccess(gitHubModel.getLastSuccess());
+        copy.setLastFail(gitHubModel.getLastFail());
+        copy.setFailMessage(gitHubModel.getFailMessage());
+        return copy;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    public void setNegativeTtl(long negativeTtl) {
+        this.negativeTtl = negativeTtl;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    private static class Entry {
+        private final GitHubModel gitHubModel;
+        private final long expires;
+
+        private Entry(GitHubModel gitHubModel, long expires) {
+            this.gitHubModel = gitHubModel;
+            this.expires = expires;
+        }
+    }
+}
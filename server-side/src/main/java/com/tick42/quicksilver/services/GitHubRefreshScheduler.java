@@ -0,0 +1,183 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.GitHubModel;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongSupplier;
+
+@Component
+@ConfigurationProperties(prefix = "github.schedule")
+public class GitHubRefreshScheduler {
+    private static final long hour = 60 * 60 * 1000;
+    private static final long neverRefreshed = Duration.ofDays(365).toMinutes();
+
+    private final LongSupplier clock;
+    private double budget = -1;
+    private long budgetUpdated;
+
+    private int hourlyBudget = 4000;
+    private long minInterval = 10 * 60 * 1000;
+    private long backoff = 5 * 60 * 1000;
+    private long maxBackoff = 24 * hour;
+
+    @Autowired
+    public GitHubRefreshScheduler(MeterRegistry meterRegistry) {
+        this(meterRegistry, System::currentTimeMillis);
+    }
+
+    GitHubRefreshScheduler(MeterRegistry meterRegistry, LongSupplier clock) {
+        this.clock = clock;
+
+        Gauge.builder("github.schedule.budget", this, GitHubRefreshScheduler::getBudget).register(meterRegistry);
+    }
+
+    public synchronized List<GitHubModel> select(List<GitHubModel> gitHubModels, Map<Long, Integer> downloads, int requestsPerRepo) {
+        long millis = clock.getAsLong();
+        refill(millis);
+
+        int capacity = (int) (budget / Math.max(1, requestsPerRepo));
+        if (capacity == 0) {
+            return Collections.emptyList();
+        }
+
+        LocalDateTime now = toDateTime(millis);
+        PriorityQueue<Candidate> queue = new PriorityQueue<>(Comparator.comparingDouble(candidate -> candidate.score));
+        for (GitHubModel gitHubModel : gitHubModels) {
+            if (!isDue(gitHubModel, now)) {
+                continue;
+            }
+
+            queue.add(new Candidate(gitHubModel, score(gitHubModel, downloads.getOrDefault(gitHubModel.getId(), 0), now)));
+            if (queue.size() > capacity) {
+                queue.poll();
+            }
+        }
+
+        List<GitHubModel> selected = new ArrayList<>(queue.size());
+        while (!queue.isEmpty()) {
+            selected.add(queue.poll().gitHubModel);
+        }
+        Collections.reverse(selected);
+
+        budget -= selected.size() * Math.max(1, requestsPerRepo);
+        return selected;
+    }
+
+    public void completed(GitHubModel gitHubModel) {
+        LocalDateTime lastFail = gitHubModel.getLastFail();
+        LocalDateTime lastSuccess = gitHubModel.getLastSuccess();
+
+        if (lastFail != null && (lastSuccess == null || lastFail.isAfter(lastSuccess))) {
+            if (!gitHubModel.isRepositoryFailure()) {
+                // the breaker, the tokens or the executor turned it away, which says nothing about the repository
+                return;
+            }
+
+            int failCount = gitHubModel.getFailCount() + 1;
+            long delay = Math.min(maxBackoff, backoff << Math.min(failCount - 1, 30));
+
+            gitHubModel.setFailCount(failCount);
+            gitHubModel.setNextRefresh(toDateTime(clock.getAsLong() + delay));
+        } else {
+            gitHubModel.setFailCount(0);
+            gitHubModel.setNextRefresh(null);
+        }
+    }
+
+    private boolean isDue(GitHubModel gitHubModel, LocalDateTime now) {
+        LocalDateTime nextRefresh = gitHubModel.getNextRefresh();
+        LocalDateTime lastSuccess = gitHubModel.getLastSuccess();
+
+        return (nextRefresh == null || !nextRefresh.isAfter(now)) &&
+                (lastSuccess == null || !lastSuccess.plus(Duration.ofMillis(minInterval)).isAfter(now));
+    }
+
+    double score(GitHubModel gitHubModel, int downloads, LocalDateTime now) {
+        LocalDateTime lastRefresh = gitHubModel.getLastSuccess();
+        if (gitHubModel.getLastFail() != null && (lastRefresh == null || gitHubModel.getLastFail().isAfter(lastRefresh))) {
+            lastRefresh = gitHubModel.getLastFail();
+        }
+
+        double staleness = lastRefresh == null ? neverRefreshed : Duration.between(lastRefresh, now).toMinutes() + 1;
+        double popularity = 1 + Math.log1p(downloads);
+        double activity = 1;
+        if (gitHubModel.getLastCommit() != null) {
+            long idleDays = Math.max(0, Duration.between(gitHubModel.getLastCommit(), now).toDays());
+            activity += 7.0 / (7 + idleDays);
+        }
+
+        return staleness * popularity * activity;
+    }
+
+    private void refill(long now) {
+        if (budget < 0) {
+            budget = hourlyBudget;
+        } else {
+            budget = Math.min(hourlyBudget, budget + (double) (now - budgetUpdated) * hourlyBudget / hour);
+        }
+        budgetUpdated = now;
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    public synchronized double getBudget() {
+        return Math.max(0, budget);
+    }
+
+    public int getHourlyBudget() {
+        return hourlyBudget;
+    }
+
+    public void setHourlyBudget(int hourlyBudget) {
+        this.hourlyBudget = hourlyBudget;
+    }
+
+    public long getMinInterval() {
+        return minInterval;
+    }
+
+    public void setMinInterval(long minInterval) {
+        this.minInterval = minInterval;
+    }
+
+    public long getBackoff() {
+        return backoff;
+    }
+
+    public void setBackoff(long backoff) {
+        this.backoff = backoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
+    }
+
+    private static class Candidate {
+        private final GitHubModel gitHubModel;
+        private final double score;
+
+        private Candidate(GitHubModel gitHubModel, double score) {
+            this.gitHubModel = gitHubModel;
+            this.score = score;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.tick42.quicksilver.services;
 import com.tick42.quicksilver.config.Scheduler;
 import com.tick42.quicksilver.exceptions.GitHubRepositoryException;
 import com.tick42.quicksilver.exceptions.UnauthorizedExtensionModificationException;
+import com.tick42.quicksilver.models.GitHubHistory;
 import com.tick42.quicksilver.models.GitHubModel;
 import com.tick42.quicksilver.models.Settings;
 import com.tick42.quicksilver.models.specs.GitHubSettingSpec;
@@ -10,70 +11,107 @@ import com.tick42.quicksilver.models.UserModel;
 import com.tick42.quicksilver.repositories.base.GitHubRepository;
 import com.tick42.quicksilver.repositories.base.SettingsRepository;
 import com.tick42.quicksilver.services.base.GitHubService;
-import org.kohsuke.github.*;
+import org.kohsuke.github.GHException;
+import org.kohsuke.github.GHFileNotFoundException;
+import org.kohsuke.github.GHIOException;
+import org.kohsuke.github.HttpException;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.scheduling.config.FixedRateTask;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityNotFoundException;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
 
 @Service
+@ConfigurationProperties(prefix = "github")
 public class GitHubServiceImpl implements GitHubService {
     private final GitHubRepository gitHubRepository;
     private final Scheduler scheduler;
     private final ThreadPoolTaskScheduler threadPoolTaskScheduler;
+    private final ExecutorService executor;
+    private final GitHubCircuitBreaker circuitBreaker;
+    private final GitHubTokenPool tokenPool;
+    private final GitHubStatsFetcher statsFetcher;
+    private final GitHubGraphQlFetcher graphQlFetcher;
+    private final GitHubRefreshScheduler refreshScheduler;
+    private final GitHubLookupCache lookupCache;
+    private final GitHubHistoryStore historyStore;
+    private final GitHubLeaderElection leaderElection;
     private SettingsRepository settingsRepository;
-    private Settings settings;
-    private GitHub gitHub;
-
-    public GitHubServiceImpl(GitHubRepository gitHubRepository, Scheduler scheduler, ThreadPoolTaskScheduler threadPoolTaskScheduler, SettingsRepository settingsRepository) {
+    private UserModel scheduleUser;
+    private ScheduledTaskRegistrar scheduleRegistrar;
+
+    private long timeout = 50000;
+    private int refreshConcurrency = 8;
+    private int refreshBatchSize = 50;
+    private int requestsPerRepo = 3;
+
+    public GitHubServiceImpl(GitHubRepository gitHubRepository, Scheduler scheduler, ThreadPoolTaskScheduler threadPoolTaskScheduler,
+                             SettingsRepository settingsRepository, ExecutorService gitHubExecutor, GitHubCircuitBreaker circuitBreaker,
+                             GitHubTokenPool tokenPool, GitHubStatsFetcher statsFetcher, GitHubGraphQlFetcher graphQlFetcher,
+                             GitHubRefreshScheduler refreshScheduler, GitHubLookupCache lookupCache,
+                             GitHubHistoryStore historyStore, GitHubLeaderElection leaderElection) {
+        this.historyStore = historyStore;
+        this.leaderElection = leaderElection;
+        this.refreshScheduler = refreshScheduler;
+        this.lookupCache = lookupCache;
+        this.tokenPool = tokenPool;
+        this.statsFetcher = statsFetcher;
+        this.graphQlFetcher = graphQlFetcher;
+        this.executor = gitHubExecutor;
+        this.circuitBreaker = circuitBreaker;
         this.settingsRepository = settingsRepository;
         this.gitHubRepository = gitHubRepository;
         this.scheduler = scheduler;
         this.threadPoolTaskScheduler = threadPoolTaskScheduler;
+
+        leaderElection.addListener(this::leadershipChanged);
     }
 
     @Override
     public void setRemoteDetails(GitHubModel gitHubModel) {
-        ExecutorService executor = Executors.newFixedThreadPool(1);
-
-        Future<Boolean> future = executor.submit(() -> {
-            try {
-
-                GHRepository repo = this.gitHub.getRepository(gitHubModel.getUser() + "/" + gitHubModel.getRepo());
-
-                int pulls = repo.getPullRequests(GHIssueState.OPEN).size();
-                int issues = repo.getIssues(GHIssueState.OPEN).size() - pulls;
-
-                LocalDateTime lastCommit = null;
-                List<GHCommit> commits = repo.listCommits().asList();
-                if (commits.size() > 0) {
-                    lastCommit = commits.get(0).getCommitDate().toInstant()
-                            .atZone(ZoneId.systemDefault())
-                            .toLocalDateTime();
-
-                }
+        gitHubModel.setRepositoryFailure(false);
+        GitHubCircuitBreaker.Permit permit = acquirePermit(gitHubModel);
+        if (permit == null) {
+            return;
+        }
+        GitHubTokenPool.Token token = acquireToken(gitHubModel, permit);
+        if (token == null) {
+            return;
+        }
 
-                gitHubModel.setPullRequests(pulls);
-                gitHubModel.setOpenIssues(issues);
-                gitHubModel.setLastCommit(lastCommit);
-                gitHubModel.setLastSuccess(LocalDateTime.now());
-                return true;
-            } catch (GHException e) {
-                throw new GitHubRepositoryException("Connected to " + gitHubModel.getLink() + " but couldn't fetch data.");
-            } catch (IOException e) {
-                throw new GitHubRepositoryException("Couldn't connect to " + gitHubModel.getLink() + ". Check URL.");
-            }
-        });
+        Future<Boolean> future;
+        try {
+            future = executor.submit(() -> fetchRemoteDetails(gitHubModel, token, permit));
+        } catch (RejectedExecutionException e) {
+            tokenPool.refund(token, requestsPerRepo);
+            permit.release();
+            gitHubModel.setFailMessage("GitHub requests are saturated.");
+            gitHubModel.setLastFail(LocalDateTime.now());
+            return;
+        }
 
         try {
-            future.get(50, TimeUnit.SECONDS);
+            future.get(timeout, TimeUnit.MILLISECONDS);
 
         } catch (InterruptedException e) {
+            future.cancel(true);
+            permit.release();
             throw new RuntimeException("New Settings are set. Current task canceled.");
 
         } catch (ExecutionException e){
@@ -82,70 +120,343 @@ public class GitHubServiceImpl implements GitHubService {
             gitHubModel.setLastFail(LocalDateTime.now());
 
         } catch (TimeoutException e) {
-            tryGithub();
+            future.cancel(true);
+            permit.failure();
+            gitHubModel.setFailMessage("Timed out waiting for GitHub.");
+            gitHubModel.setLastFail(LocalDateTime.now());
+        }
+    }
+
+    private GitHubCircuitBreaker.Permit acquirePermit(GitHubModel gitHubModel) {
+        GitHubCircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == null) {
+            gitHubModel.setFailMessage("GitHub is currently unavailable.");
+            gitHubModel.setLastFail(LocalDateTime.now());
+        }
+        return permit;
+    }
+
+    private GitHubTokenPool.Token acquireToken(GitHubModel gitHubModel, GitHubCircuitBreaker.Permit permit) {
+        GitHubTokenPool.Token token = tokenPool.acquire(requestsPerRepo);
+        if (token == null) {
+            permit.release();
+            gitHubModel.setFailMessage(tokenPool.isEmpty() ? "No GitHub token is configured." : "GitHub rate limit is exhausted.");
+            gitHubModel.setLastFail(LocalDateTime.now());
         }
+        return token;
     }
 
-    private void tryGithub(){
-        settings = settingsRepository.findById(settings.getId() + 1)
-                .orElse(settingsRepository.findById(1L)
-                        .orElseThrow(() -> new RuntimeException("No settings found.")));
+    private boolean fetchRemoteDetails(GitHubModel gitHubModel, GitHubTokenPool.Token token, GitHubCircuitBreaker.Permit permit) {
         try {
-            gitHub = org.kohsuke.github.GitHub.connect(settings.getUsername(), settings.getToken());
+            statsFetcher.fetch(token.getGitHub(), token.getToken(), gitHubModel);
+            permit.success();
+            return true;
+        } catch (GHException e) {
+            permit.failure();
+            gitHubModel.setRepositoryFailure(true);
+            throw new GitHubRepositoryException("Connected to " + gitHubModel.getLink() + " but couldn't fetch data.");
         } catch (IOException e) {
-            throw new RuntimeException("Couldn't connect to github.");
+            int status = statusOf(e);
+            if (status == HttpURLConnection.HTTP_UNAUTHORIZED) {
+                // a revoked token says nothing about GitHub's health
+                tokenPool.invalidate(token);
+                permit.release();
+                throw new GitHubRepositoryException("GitHub rejected the token of " + token.getUsername() + ".");
+            } else if (status == HttpURLConnection.HTTP_FORBIDDEN) {
+                permit.release();
+                throw new GitHubRepositoryException("GitHub refused access to " + gitHubModel.getLink() + ".");
+            } else if (e instanceof FileNotFoundException) {
+                permit.success();
+                gitHubModel.setRepositoryFailure(true);
+            } else {
+                permit.failure();
+            }
+            throw new GitHubRepositoryException("Couldn't connect to " + gitHubModel.getLink() + ". Check URL.");
+        } finally {
+            tokenPool.record(token);
+            permit.release();
         }
     }
 
-    @Override
-    public void getRepoDetails(GitHubModel gitHubModel) throws IOException{
-        GHRepository repo = this.gitHub.getRepository(gitHubModel.getUser() + "/" + gitHubModel.getRepo());
+    private static int statusOf(IOException e) {
+        if (e instanceof HttpException) {
+            return ((HttpException) e).getResponseCode();
+        }
 
-        int pulls = repo.getPullRequests(GHIssueState.OPEN).size();
-        int issues = repo.getIssues(GHIssueState.OPEN).size() - pulls;
+        Map<String, List<String>> headers = null;
+        if (e instanceof GHIOException) {
+            headers = ((GHIOException) e).getResponseHeaderFields();
+        } else if (e instanceof GHFileNotFoundException) {
+            headers = ((GHFileNotFoundException) e).getResponseHeaderFields();
+        }
 
-        LocalDateTime lastCommit = null;
-        List<GHCommit> commits = repo.listCommits().asList();
-        if (commits.size() > 0) {
-            lastCommit = commits.get(0).getCommitDate().toInstant()
-                    .atZone(ZoneId.systemDefault())
-                    .toLocalDateTime();
+        // the status line is kept under the null key, e.g. "HTTP/1.1 401 Unauthorized"
+        List<String> statusLine = headers == null ? null : headers.get(null);
+        if (statusLine == null || statusLine.isEmpty()) {
+            return -1;
         }
+        String[] parts = statusLine.get(0).split(" ");
+        try {
+            return parts.length > 1 ? Integer.parseInt(parts[1]) : -1;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
 
-        gitHubModel.setPullRequests(pulls);
-        gitHubModel.setOpenIssues(issues);
-        gitHubModel.setLastCommit(lastCommit);
-        gitHubModel.setLastSuccess(LocalDateTime.now());
+    private GitHubModel refreshRemoteDetails(GitHubModel gitHubModel) {
+        if (tokenPool.isExhausted(requestsPerRepo)) {
+            return null;
+        }
+
+        gitHubModel.setRepositoryFailure(false);
+        GitHubCircuitBreaker.Permit permit = acquirePermit(gitHubModel);
+        GitHubTokenPool.Token token = permit == null ? null : acquireToken(gitHubModel, permit);
+        if (token != null) {
+            try {
+                fetchRemoteDetails(gitHubModel, token, permit);
+            } catch (GitHubRepositoryException e) {
+                gitHubModel.setFailMessage(e.getMessage());
+                gitHubModel.setLastFail(LocalDateTime.now());
+            }
+        }
+        return gitHubModel;
     }
+
+    @Override
+    public void getRepoDetails(GitHubModel gitHubModel) throws IOException{
+        GitHubTokenPool.Token token = tokenPool.acquire(requestsPerRepo);
+        if (token == null) {
+            throw new IOException("No GitHub token has quota left.");
+        }
+
+        try {
+            statsFetcher.fetch(token.getGitHub(), token.getToken(), gitHubModel);
+        } finally {
+            tokenPool.record(token);
+        }
+    }
+
     @Override
     public GitHubModel generateGitHub(String link) {
+        GitHubModel gitHubModel = generatePendingGitHub(link);
+        setRemoteDetails(gitHubModel);
+        return gitHubModel;
+    }
+
+    @Override
+    public GitHubModel generatePendingGitHub(String link) {
         String[] githubCred = link.replaceAll("https://github.com/", "").split("/");
         String user = githubCred[0];
         String repo = githubCred[1];
-        GitHubModel gitHubModel = new GitHubModel(link, user, repo);
-        setRemoteDetails(gitHubModel);
-        return gitHubModel;
+        return new GitHubModel(link, user, repo);
     }
 
     @Override
-    public GitHubModel updateGithub(long githubId, String githubLink) {
-        GitHubModel newGitHubModel = generateGitHub(githubLink);
-        newGitHubModel.setId(githubId);
+    public void enrichAfterCommit(GitHubModel gitHubModel) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    long id = gitHubModel.getId();
+                    threadPoolTaskScheduler.execute(() -> enrich(id));
+                }
+            });
+        } else {
+            long id = gitHubModel.getId();
+            threadPoolTaskScheduler.execute(() -> enrich(id));
+        }
+    }
+
+    private void enrich(long id) {
+        gitHubRepository.findById(id).ifPresent(gitHubModel -> {
+            setRemoteDetails(gitHubModel);
+            refreshScheduler.completed(gitHubModel);
+            gitHubRepository.save(gitHubModel);
+            historyStore.record(gitHubModel);
+        });
+    }
+
+    @Override
+    public GitHubModel findById(long id) {
+        return gitHubRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("GitHub repository not found."));
+    }
+
+    @Override
+    public List<GitHubHistory.Sample> getHistory(long id, int days) {
+        return historyStore.getSparkline(findById(id).getId(), days);
+    }
 
-        return newGitHubModel;
+    @Override
+    public GitHubModel lookupGitHub(String link) {
+        String[] githubCred = link.replaceAll("https://github.com/", "").split("/");
+        String key = (githubCred[0] + "/" + githubCred[1].replaceAll("\\.git$", "")).toLowerCase();
+        return lookupCache.get(key, () -> generateGitHub(link));
     }
+
     @Override
     public void updateExtensionDetails() {
-        List<GitHubModel> gitHubModels = gitHubRepository.findAll();
-        gitHubModels.forEach(gitHub -> {
-            setRemoteDetails(gitHub);
-            gitHubRepository.save(gitHub);
+        Map<Long, Integer> downloads = new HashMap<>();
+        gitHubRepository.findDownloadCounts().forEach(row -> downloads.put((Long) row[0], (Integer) row[1]));
+        List<GitHubModel> gitHubModels = refreshScheduler.select(gitHubRepository.findAll(), downloads, requestsPerRepo);
+
+        if (graphQlFetcher.isEnabled() && !gitHubModels.isEmpty()) {
+            gitHubModels = fetchGraphQl(gitHubModels);
+        }
+
+        refreshRemoteDetails(gitHubModels);
+    }
+
+    private List<GitHubModel> fetchGraphQl(List<GitHubModel> gitHubModels) {
+        GitHubCircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+        if (permit == null) {
+            return gitHubModels;
+        }
+
+        int cost = graphQlFetcher.estimateCost(gitHubModels.size());
+        GitHubTokenPool.Token token = tokenPool.acquire(cost);
+        if (token == null) {
+            permit.release();
+            return gitHubModels;
+        }
+
+        GitHubGraphQlFetcher.Result result;
+        try {
+            result = graphQlFetcher.fetch(token.getToken(), gitHubModels);
+        } catch (RuntimeException e) {
+            tokenPool.refund(token, cost);
+            permit.failure();
+            throw e;
+        }
+
+        switch (result.getOutcome()) {
+            case UNAUTHORIZED:
+                tokenPool.invalidate(token);
+                permit.release();
+                break;
+            case FORBIDDEN:
+                permit.release();
+                break;
+            case UNREACHABLE:
+                permit.failure();
+                break;
+            default:
+                permit.success();
+        }
+        tokenPool.refund(token, Math.max(0, cost - result.getCost()));
+
+        Set<GitHubModel> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        failed.addAll(result.getFailed());
+
+        List<GitHubModel> updated = new ArrayList<>(gitHubModels.size() - failed.size());
+        gitHubModels.forEach(gitHubModel -> {
+            if (!failed.contains(gitHubModel)) {
+                refreshScheduler.completed(gitHubModel);
+                updated.add(gitHubModel);
+            }
         });
+        for (int i = 0; i < updated.size(); i += refreshBatchSize) {
+            gitHubRepository.saveAll(updated.subList(i, Math.min(i + refreshBatchSize, updated.size())));
+        }
+        updated.forEach(historyStore::record);
+
+        return new ArrayList<>(failed);
+    }
+
+    private void refreshRemoteDetails(List<GitHubModel> gitHubModels) {
+        int concurrency = refreshConcurrency(gitHubModels.size());
+        if (concurrency == 0) {
+            return;
+        }
+
+        // the refresh shares the GitHub executor with single lookups, so it only keeps a few slots busy at a time
+        Semaphore slots = new Semaphore(concurrency);
+        CompletionService<GitHubModel> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<GitHubModel>> futures = new ArrayList<>(gitHubModels.size());
+        List<GitHubModel> batch = new ArrayList<>(refreshBatchSize);
+        int pending = 0;
+        try {
+            for (GitHubModel gitHubModel : gitHubModels) {
+                if (!slots.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                try {
+                    futures.add(completionService.submit(() -> {
+                        try {
+                            return refreshRemoteDetails(gitHubModel);
+                        } finally {
+                            slots.release();
+                        }
+                    }));
+                    pending++;
+                } catch (RejectedExecutionException e) {
+                    slots.release();
+                    break;
+                }
+
+                for (Future<GitHubModel> future; (future = completionService.poll()) != null; pending--) {
+                    batch = completed(future, batch);
+                }
+            }
+
+            for (; pending > 0; pending--) {
+                Future<GitHubModel> future = completionService.poll(timeout, TimeUnit.MILLISECONDS);
+                if (future == null) {
+                    break;
+                }
+                batch = completed(future, batch);
+            }
+
+            if (!batch.isEmpty()) {
+                gitHubRepository.saveAll(batch);
+                batch.forEach(historyStore::record);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private List<GitHubModel> completed(Future<GitHubModel> future, List<GitHubModel> batch) throws InterruptedException {
+        try {
+            GitHubModel gitHubModel = future.get();
+            if (gitHubModel != null) {
+                refreshScheduler.completed(gitHubModel);
+                batch.add(gitHubModel);
+            }
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+
+        if (batch.size() < refreshBatchSize) {
+            return batch;
+        }
+        gitHubRepository.saveAll(batch);
+        batch.forEach(historyStore::record);
+        return new ArrayList<>(refreshBatchSize);
+    }
+
+    private int refreshConcurrency(int repositories) {
+        int concurrency = Math.min(refreshConcurrency, repositories);
+        if (tokenPool.isEmpty() || concurrency == 0) {
+            return concurrency;
+        }
+        if (tokenPool.isExhausted(requestsPerRepo)) {
+            return 0;
+        }
+
+        int limit = tokenPool.getLimit();
+        if (limit > 0) {
+            concurrency = (int) Math.ceil(concurrency * (double) tokenPool.getRemaining() / limit);
+        }
+
+        return Math.max(1, concurrency);
     }
 
     @Override
-    public Settings createScheduledTask(UserModel user, ScheduledTaskRegistrar taskRegistrar, GitHubSettingSpec gitHubSettingSpec) {
-        settings = settingsRepository.findByUser(user);
+    public synchronized Settings createScheduledTask(UserModel user, ScheduledTaskRegistrar taskRegistrar, GitHubSettingSpec gitHubSettingSpec) {
+        Settings settings = settingsRepository.findByUser(user);
 
         if(settings == null) settings = new Settings();
 
@@ -156,21 +467,24 @@ public class GitHubServiceImpl implements GitHubService {
 
             newSettings.setUser(user);
             settings = settingsRepository.save(newSettings);
+            leaderElection.revise();
         }
 
-        if (settings.getToken() == null || settings.getUsername() == null) return null;
+        tokenPool.reload();
+        scheduleUser = user;
+        scheduleRegistrar = taskRegistrar;
 
-        try {
-            gitHub = org.kohsuke.github.GitHub.connect(settings.getUsername(), settings.getToken());
-        } catch (IOException e) {
-            throw new RuntimeException("Couldn't connect to github.");
-        }
+        if (settings.getToken() == null || settings.getUsername() == null) return null;
 
 
         if (scheduler.getTask() != null) scheduler.getTask().cancel();
+        scheduler.setTask(null);
 
+        if (!leaderElection.isLeader()) return settings;
 
-        FixedRateTask updateGitHubData = new FixedRateTask(this::updateExtensionDetails, settings.getRate(), settings.getWait());
+        FixedRateTask updateGitHubData = new FixedRateTask(() -> {
+            if (leaderElection.isLeader()) updateExtensionDetails();
+        }, settings.getRate(), settings.getWait());
 
         taskRegistrar.setTaskScheduler(threadPoolTaskScheduler);
         scheduler.setTask(taskRegistrar.scheduleFixedRateTask(updateGitHubData));
@@ -178,6 +492,15 @@ public class GitHubServiceImpl implements GitHubService {
         return settings;
     }
 
+    private synchronized void leadershipChanged(boolean leader) {
+        if (scheduleUser == null) {
+            tokenPool.reload();
+            return;
+        }
+
+        createScheduledTask(scheduleUser, scheduleRegistrar, null);
+    }
+
     @Override
     public Settings getSettings(UserModel user) {
         Settings userSettings = settingsRepository.findByUser(user);
@@ -188,18 +511,59 @@ public class GitHubServiceImpl implements GitHubService {
     }
 
 
+    @Override
+    public List<GitHubTokenPool.Token> getTokens() {
+        return tokenPool.getTokens();
+    }
+
     @Override
     public GitHubModel fetchGitHub(GitHubModel gitHubModel, UserModel loggedUser) {
         if (!loggedUser.getRole().equals("ROLE_ADMIN")) {
             throw new UnauthorizedExtensionModificationException("You are not authorized to trigger a github refresh.");
         }
         setRemoteDetails(gitHubModel);
+        refreshScheduler.completed(gitHubModel);
 
-        return gitHubRepository.save(gitHubModel);
+        GitHubModel saved = gitHubRepository.save(gitHubModel);
+        historyStore.record(saved);
+        return saved;
     }
 
     @Override
     public void delete(GitHubModel gitHubModel){
+        historyStore.delete(gitHubModel.getId());
         gitHubRepository.delete(gitHubModel);
     }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getRefreshConcurrency() {
+        return refreshConcurrency;
+    }
+
+    public void setRefreshConcurrency(int refreshConcurrency) {
+        this.refreshConcurrency = refreshConcurrency;
+    }
+
+    public int getRefreshBatchSize() {
+        return refreshBatchSize;
+    }
+
+    public void setRefreshBatchSize(int refreshBatchSize) {
+        this.refreshBatchSize = refreshBatchSize;
+    }
+
+    public int getRequestsPerRepo() {
+        return requestsPerRepo;
+    }
+
+    public void setRequestsPerRepo(int requestsPerRepo) {
+        this.requestsPerRepo = requestsPerRepo;
+    }
 }
@@ -0,0 +1,81 @@
+package com.tick42.quicksilver.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tick42.quicksilver.models.GitHubModel;
+import org.kohsuke.github.GHCommit;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.HttpException;
+import org.kohsuke.github.PagedIterator;
+import org.springframework.stereotype.Component;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+public class GitHubStatsFetcher {
+
+    private static final Pattern lastPage = Pattern.compile("[?&]page=(\\d+)[^>]*>;\\s*rel=\"last\"");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public void fetch(GitHub gitHub, String token, GitHubModel gitHubModel) throws IOException {
+        String fullName = gitHubModel.getUser() + "/" + gitHubModel.getRepo();
+        GHRepository repo = gitHub.getRepository(fullName);
+
+        int pulls = countOpenPullRequests(gitHub, token, fullName);
+        int issues = Math.max(0, repo.getOpenIssueCount() - pulls);
+
+        LocalDateTime lastCommit = null;
+        PagedIterator<GHCommit> commits = repo.listCommits().withPageSize(1).iterator();
+        if (commits.hasNext()) {
+            lastCommit = commits.next().getCommitDate().toInstant()
+                    .atZone(ZoneId.systemDefault())
+                    .toLocalDateTime();
+        }
+
+        gitHubModel.setPullRequests(pulls);
+        gitHubModel.setOpenIssues(issues);
+        gitHubModel.setStars(repo.getStargazersCount());
+        gitHubModel.setForks(repo.getForks());
+        gitHubModel.setLastCommit(lastCommit);
+        gitHubModel.setLastSuccess(LocalDateTime.now());
+    }
+
+    // github-api doesn't expose the Link header, so list one open pull request per page and read the last page number
+    private int countOpenPullRequests(GitHub gitHub, String token, String fullName) throws IOException {
+        URL url = new URL(gitHub.getApiUrl() + "/repos/" + fullName + "/pulls?state=open&per_page=1");
+        HttpURLConnection connection = gitHub.getConnector().connect(url);
+        connection.setRequestProperty("Accept", "application/vnd.github.v3+json");
+        if (token != null) {
+            connection.setRequestProperty("Authorization", "token " + token);
+        }
+
+        try {
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+                throw new FileNotFoundException(url.toString());
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new HttpException("Couldn't count open pull requests.", status, connection.getResponseMessage(), url.toString());
+            }
+
+            String link = connection.getHeaderField("Link");
+            Matcher matcher = link == null ? null : lastPage.matcher(link);
+            if (matcher != null && matcher.find()) {
+                return Integer.parseInt(matcher.group(1));
+            }
+            try (InputStream inputStream = connection.getInputStream()) {
+                return objectMapper.readTree(inputStream).size();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
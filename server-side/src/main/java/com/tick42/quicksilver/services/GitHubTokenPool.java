@@ -0,0 +1,323 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.Settings;
+import com.tick42.quicksilver.repositories.base.SettingsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kohsuke.github.GHRateLimit;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+@Component
+@ConfigurationProperties(prefix = "github.tokens")
+public class GitHubTokenPool {
+    private static final long window = 60 * 60 * 1000;
+
+    private final SettingsRepository settingsRepository;
+    private final GitHubConnector connector;
+    private final LongSupplier clock;
+    private List<Token> tokens = Collections.emptyList();
+
+    private String endpoint = "https://api.github.com";
+    private int defaultLimit = 5000;
+    private long invalidRetry = 60000;
+
+    @Autowired
+    public GitHubTokenPool(SettingsRepository settingsRepository, GitHubConnector connector, MeterRegistry meterRegistry) {
+        this(settingsRepository, connector, meterRegistry, System::currentTimeMillis);
+    }
+
+    GitHubTokenPool(SettingsRepository settingsRepository, GitHubConnector connector, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.settingsRepository = settingsRepository;
+        this.connector = connector;
+        this.clock = clock;
+
+        Gauge.builder("github.ratelimit.remaining", this, GitHubTokenPool::getRemaining).register(meterRegistry);
+        Gauge.builder("github.ratelimit.limit", this, GitHubTokenPool::getLimit).register(meterRegistry);
+        Gauge.builder("github.tokens.available", this, pool -> pool.getAvailable(1)).register(meterRegistry);
+    }
+
+    public void reload() {
+        Map<Long, Token> previous = new HashMap<>();
+        synchronized (this) {
+            tokens.forEach(token -> previous.put(token.settingsId, token));
+        }
+
+        List<Token> reloaded = new ArrayList<>();
+        for (Settings settings : settingsRepository.findAll()) {
+            if (settings.getToken() == null || settings.getUsername() == null) {
+                continue;
+            }
+
+            Token existing = previous.get(settings.getId());
+            if (existing != null && existing.token.equals(settings.getToken())
+                    && existing.username.equals(settings.getUsername())) {
+                reloaded.add(existing);
+                continue;
+            }
+
+            Token token;
+            try {
+                token = new Token(settings, connect(settings));
+            } catch (IOException e) {
+                e.printStackTrace();
+                continue;
+            }
+
+            try {
+                if (token.gitHub.isCredentialValid()) {
+                    GHRateLimit rateLimit = token.gitHub.rateLimit();
+                    token.limit = rateLimit.limit;
+                    token.remaining = rateLimit.remaining;
+                    token.reset = rateLimit.getResetDate().getTime();
+                } else {
+                    invalidate(token);
+                }
+            } catch (IOException e) {
+                token.limit = defaultLimit;
+                token.reset = clock.getAsLong() + invalidRetry;
+            }
+            reloaded.add(token);
+        }
+
+        synchronized (this) {
+            tokens = reloaded;
+        }
+    }
+
+    /**
+     * Rejected tokens stay out of rotation until GitHub accepts their credentials again,
+     * instead of coming back with a full quota once the retry delay passes.
+     */
+    @Scheduled(fixedDelayString = "${github.tokens.invalidRetry:60000}")
+    public void revalidate() {
+        long now = clock.getAsLong();
+        List<Token> due = new ArrayList<>();
+        synchronized (this) {
+            tokens.stream()
+                    .filter(token -> !token.valid && now >= token.reset)
+                    .forEach(due::add);
+        }
+
+        for (Token token : due) {
+            try {
+                if (token.gitHub.isCredentialValid()) {
+                    GHRateLimit rateLimit = token.gitHub.rateLimit();
+                    synchronized (this) {
+                        token.valid = true;
+                        token.limit = rateLimit.limit;
+                        token.remaining = rateLimit.remaining;
+                        token.reset = rateLimit.getResetDate().getTime();
+                    }
+                    continue;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            synchronized (this) {
+                token.reset = clock.getAsLong() + invalidRetry;
+            }
+        }
+    }
+
+    public synchronized void invalidate(Token token) {
+        token.valid = false;
+        token.limit = 0;
+        token.remaining = 0;
+        token.reset = clock.getAsLong() + invalidRetry;
+    }
+
+    private GitHub connect(Settings settings) throws IOException {
+        return new GitHubBuilder()
+                .withEndpoint(endpoint)
+                .withOAuthToken(settings.getToken(), settings.getUsername())
+                .withConnector(connector)
+                .build();
+    }
+
+    public synchronized Token acquire(int cost) {
+        long now = clock.getAsLong();
+        Token best = null;
+        for (Token token : tokens) {
+            token.resetIfDue(now);
+            if (token.remaining >= cost && (best == null || token.remaining > best.remaining)) {
+                best = token;
+            }
+        }
+
+        if (best != null) {
+            best.remaining -= cost;
+        }
+        return best;
+    }
+
+    public synchronized void refund(Token token, int cost) {
+        token.remaining = Math.min(token.limit, token.remaining + cost);
+    }
+
+    public synchronized void record(Token token) {
+        GHRateLimit rateLimit = token.gitHub.lastRateLimit();
+        if (rateLimit == null || rateLimit.getResetDate() == null) {
+            return;
+        }
+
+        long reset = rateLimit.getResetDate().getTime();
+        if (reset == token.reset) {
+            token.remaining = Math.min(token.remaining, rateLimit.remaining);
+        } else {
+            token.remaining = rateLimit.remaining;
+            token.reset = reset;
+        }
+        token.limit = rateLimit.limit;
+    }
+
+    public synchronized boolean isEmpty() {
+        return tokens.isEmpty();
+    }
+
+    public synchronized boolean isExhausted(int cost) {
+        return !tokens.isEmpty() && getAvailable(cost) == 0;
+    }
+
+    public synchronized int getAvailable(int cost) {
+        long now = clock.getAsLong();
+        int available = 0;
+        for (Token token : tokens) {
+            token.resetIfDue(now);
+            if (token.remaining >= cost) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    public synchronized int getRemaining() {
+        long now = clock.getAsLong();
+        int remaining = 0;
+        for (Token token : tokens) {
+            token.resetIfDue(now);
+            remaining += token.remaining;
+        }
+        return remaining;
+    }
+
+    public synchronized int getLimit() {
+        return tokens.stream()
+                .mapToInt(token -> token.limit)
+                .sum();
+    }
+
+    public synchronized List<Token> getTokens() {
+        long now = clock.getAsLong();
+        List<Token> snapshot = new ArrayList<>(tokens.size());
+        for (Token token : tokens) {
+            token.resetIfDue(now);
+            snapshot.add(new Token(token));
+        }
+        return snapshot;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public long getInvalidRetry() {
+        return invalidRetry;
+    }
+
+    public void setInvalidRetry(long invalidRetry) {
+        this.invalidRetry = invalidRetry;
+    }
+
+    public static class Token {
+        private final long settingsId;
+        private final String username;
+        private final String token;
+        private final GitHub gitHub;
+        private int remaining;
+        private int limit;
+        private long reset;
+        private boolean valid = true;
+
+        private Token(Settings settings, GitHub gitHub) {
+            this.settingsId = settings.getId();
+            this.username = settings.getUsername();
+            this.token = settings.getToken();
+            this.gitHub = gitHub;
+        }
+
+        private Token(Token token) {
+            this.settingsId = token.settingsId;
+            this.username = token.username;
+            this.token = token.token;
+            this.gitHub = token.gitHub;
+            this.remaining = token.remaining;
+            this.limit = token.limit;
+            this.reset = token.reset;
+            this.valid = token.valid;
+        }
+
+        private void resetIfDue(long now) {
+            if (valid && now >= reset) {
+                remaining = limit;
+                reset = now + window;
+            }
+        }
+
+        public long getSettingsId() {
+            return settingsId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public GitHub getGitHub() {
+            return gitHub;
+        }
+
+        public int getRemaining() {
+            return remaining;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public long getReset() {
+            return reset;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.tick42.quicksilver.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tick42.quicksilver.models.GitHubModel;
+import com.tick42.quicksilver.repositories.base.GitHubRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.transaction.Transactional;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "github.webhook")
+public class GitHubWebhookQueue {
+    public enum Result { ACCEPTED, IGNORED, DUPLICATE, FULL }
+
+    private final GitHubRepository gitHubRepository;
+    private final GitHubHistoryStore historyStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Delta> pending = new HashMap<>();
+    private final Map<String, Boolean> deliveries = new LinkedHashMap<String, Boolean>(16, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > deliveryHistory;
+        }
+    };
+    private final Counter accepted;
+    private final Counter duplicates;
+    private final Counter rejected;
+
+    private String secret = "";
+    private int capacity = 1000;
+    private int deliveryHistory = 10000;
+    private long flushInterval = 1000;
+
+    public GitHubWebhookQueue(GitHubRepository gitHubRepository, GitHubHistoryStore historyStore,
+                              MeterRegistry meterRegistry, PlatformTransactionManager transactionManager) {
+        this.gitHubRepository = gitHubRepository;
+        this.historyStore = historyStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("github.webhook.queue.size", this, GitHubWebhookQueue::getSize).register(meterRegistry);
+        accepted = meterRegistry.counter("github.webhook.accepted");
+        duplicates = meterRegistry.counter("github.webhook.duplicates");
+        rejected = meterRegistry.counter("github.webhook.rejected");
+    }
+
+    public boolean verify(byte[] payload, String signature) {
+        if (secret == null || secret.isEmpty() || signature == null || !signature.startsWith("sha256=")) {
+            return false;
+        }
+
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            byte[] expected = toHex(mac.doFinal(payload)).getBytes(StandardCharsets.US_ASCII);
+            byte[] actual = signature.substring("sha256=".length()).getBytes(StandardCharsets.US_ASCII);
+
+            return MessageDigest.isEqual(expected, actual);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available.", e);
+        }
+    }
+
+    public synchronized Result submit(String delivery, String event, byte[] payload) throws IOException {
+        if (delivery != null && deliveries.containsKey(delivery)) {
+            duplicates.increment();
+            return Result.DUPLICATE;
+        }
+
+        JsonNode root = objectMapper.readTree(payload);
+        Delta delta = toDelta(event, root);
+        if (delta == null) {
+            return Result.IGNORED;
+        }
+
+        String key = root.path("repository").path("full_name").asText();
+        if (!pending.containsKey(key) && pending.size() >= capacity) {
+            rejected.increment();
+            return Result.FULL;
+        }
+
+        pending.merge(key, delta, Delta::add);
+        if (delivery != null) {
+            deliveries.put(delivery, Boolean.TRUE);
+        }
+        accepted.increment();
+        return Result.ACCEPTED;
+    }
+
+    private Delta toDelta(String event, JsonNode root) {
+        if (!root.path("repository").hasNonNull("full_name")) {
+            return null;
+        }
+
+        String action = root.path("action").asText();
+        switch (event == null ? "" : event) {
+            case "push":
+                String defaultBranch = root.path("repository").path("default_branch").asText();
+                if (!root.path("ref").asText().equals("refs/heads/" + defaultBranch)) {
+                    return null;
+                }
+                LocalDateTime lastCommit = parseDate(root.path("head_commit").path("timestamp").asText(null));
+                return lastCommit == null ? null : new Delta(0, 0, lastCommit);
+
+            case "pull_request":
+                int pullRequests = openedOrClosed(action);
+                return pullRequests == 0 ? null : new Delta(pullRequests, 0, null);
+
+            case "issues":
+                int openIssues = openedOrClosed(action);
+                if (action.equals("deleted") && !root.path("issue").path("state").asText().equals("open")) {
+                    openIssues = 0;
+                }
+                return openIssues == 0 ? null : new Delta(0, openIssues, null);
+
+            default:
+                return null;
+        }
+    }
+
+    private static int openedOrClosed(String action) {
+        switch (action) {
+            case "opened":
+            case "reopened":
+                return 1;
+            case "closed":
+            case "deleted":
+                return -1;
+            default:
+                return 0;
+        }
+    }
+
+    private static LocalDateTime parseDate(String date) {
+        if (date == null) {
+            return null;
+        }
+
+        try {
+            return ZonedDateTime.parse(date)
+                    .withZoneSameInstant(ZoneId.systemDefault())
+                    .toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${github.webhook.flushInterval:1000}")
+    public void flush() {
+        Map<String, Delta> drained;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            drained = new HashMap<>(pending);
+            pending.clear();
+        }
+
+        boolean synchronization = TransactionSynchronizationManager.isSynchronizationActive();
+        if (synchronization) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                        requeue(drained);
+                    }
+                }
+            });
+        }
+
+        try {
+            List<GitHubModel> updated = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+            drained.forEach((key, delta) -> {
+                String[] fullName = key.split("/", 2);
+                for (GitHubModel gitHubModel : gitHubRepository.findByUserAndRepo(fullName[0], fullName[1])) {
+                    delta.applyTo(gitHubModel);
+                    gitHubModel.setLastWebhook(now);
+                    updated.add(gitHubModel);
+                }
+            });
+
+            if (!updated.isEmpty()) {
+                gitHubRepository.saveAll(updated);
+                updated.forEach(historyStore::record);
+            }
+        } catch (RuntimeException e) {
+            if (!synchronization) {
+                requeue(drained);
+            }
+            throw e;
+        }
+    }
+
+    private synchronized void requeue(Map<String, Delta> drained) {
+        drained.forEach((key, delta) -> pending.merge(key, delta, Delta::add));
+    }
+
+    @PreDestroy
+    public void close() {
+        transactionTemplate.execute(status -> {
+            flush();
+            return null;
+        });
+    }
+
+    public synchronized int getSize() {
+        return pending.size();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    public String getSecret() {
+        return secret;
+    }
+
+    public void setSecret(String secret) {
+        this.secret = secret;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getDeliveryHistory() {
+        return deliveryHistory;
+    }
+
+    public void setDeliveryHistory(int deliveryHistory) {
+        this.deliveryHistory = deliveryHistory;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    static class Delta {
+        private final int pullRequests;
+        private final int openIssues;
+        private final LocalDateTime lastCommit;
+
+        Delta(int pullRequests, int openIssues, LocalDateTime lastCommit) {
+            this.pullRequests = pullRequests;
+            this.openIssues = openIssues;
+            this.lastCommit = lastCommit;
+        }
+
+        Delta add(Delta other) {
+            return new Delta(pullRequests + other.pullRequests, openIssues + other.openIssues, latest(lastCommit, other.lastCommit));
+        }
+
+        void applyTo(GitHubModel gitHubModel) {
+            gitHubModel.setPullRequests(Math.max(0, gitHubModel.getPullRequests() + pullRequests));
+            gitHubModel.setOpenIssues(Math.max(0, gitHubModel.getOpenIssues() + openIssues));
+            gitHubModel.setLastCommit(latest(gitHubModel.getLastCommit(), lastCommit));
+        }
+
+        private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+            if (first == null) return second;
+            if (second == null) return first;
+            return first.isAfter(second) ? first : second;
+        }
+    }
+}
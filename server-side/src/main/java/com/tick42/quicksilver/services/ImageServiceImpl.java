@@ -0,0 +1,337 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.exceptions.FileFormatException;
+import com.tick42.quicksilver.exceptions.FileStorageException;
+import com.tick42.quicksilver.exceptions.InvalidParameterException;
+import com.tick42.quicksilver.models.File;
+import com.tick42.quicksilver.services.base.ImageService;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@ConfigurationProperties(prefix = "file.variants")
+public class ImageServiceImpl implements ImageService {
+    private static final List<String> fits = Arrays.asList("contain", "cover", "fill");
+
+    private final Path variantLocation;
+    private final Map<String, Long> variants = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private List<Integer> allowedSizes = new ArrayList<>(Arrays.asList(32, 64, 128, 256, 512, 1024));
+    private long capacity = 256 * 1024 * 1024;
+    private int placeholderSize = 16;
+    private float placeholderQuality = 0.3f;
+    private long size;
+
+    public ImageServiceImpl() {
+        this.variantLocation = Paths.get("./uploads/variants")
+                .toAbsolutePath().normalize();
+
+        try {
+            Files.createDirectories(this.variantLocation);
+            loadVariants();
+        } catch (IOException e) {
+            throw new FileStorageException("Couldn't create directory");
+        }
+    }
+
+    @Override
+    public Resource getVariant(File image, Supplier<Resource> source, Integer width, Integer height, String fit) {
+        if (!image.getType().startsWith("image/")) {
+            throw new FileFormatException("Only images can be resized.");
+        }
+
+        if (width == null && height == null) {
+            throw new InvalidParameterException("Provide a width or a height.");
+        }
+        checkSize(width);
+        checkSize(height);
+
+        if (fit == null) {
+            fit = "contain";
+        }
+
+        if (!fits.contains(fit)) {
+            throw new InvalidParameterException("\"" + fit + "\" is not a valid fit. Use \"contain\", \"cover\" or \"fill\".");
+        }
+
+        String format = getFormat(image.getType());
+        String key = String.format("%d_%sx%s_%s.%s", image.getId(),
+                width == null ? "" : width, height == null ? "" : height, fit, format);
+
+        Path variant = lookup(key);
+        if (variant == null) {
+            variant = generate(key, source, width, height, fit, format);
+        }
+
+        return new FileSystemResource(variant.toFile());
+    }
+
+    @Override
+    public String generatePlaceholder(InputStream source) {
+        try {
+            BufferedImage original = ImageIO.read(source);
+            if (original == null) {
+                return null;
+            }
+
+            Integer width = null;
+            Integer height = null;
+            if (original.getWidth() >= original.getHeight()) {
+                width = Math.min(placeholderSize, original.getWidth());
+            } else {
+                height = Math.min(placeholderSize, original.getHeight());
+            }
+            BufferedImage resized = resize(original, width, height, "contain", false);
+
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(placeholderQuality);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+                writer.setOutput(imageOutputStream);
+                writer.write(null, new IIOImage(resized, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+
+            return "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(outputStream.toByteArray());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void checkSize(Integer size) {
+        if (size != null && !allowedSizes.contains(size)) {
+            throw new InvalidParameterException(size + " is not an allowed size. Use one of " + allowedSizes + ".");
+        }
+    }
+
+    private Path generate(String key, Supplier<Resource> source, Integer width, Integer height, String fit, String format) {
+        CompletableFuture<Path> flight = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            Path variant = lookup(key);
+            if (variant == null) {
+                variant = render(key, source.get(), width, height, fit, format);
+            }
+            flight.complete(variant);
+
+            return variant;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    private Path render(String key, Resource source, Integer width, Integer height, String fit, String format) {
+        try {
+            BufferedImage original;
+            try (InputStream inputStream = source.getInputStream()) {
+                original = ImageIO.read(inputStream);
+            }
+
+            if (original == null) {
+                throw new FileFormatException("Couldn't read the image.");
+            }
+
+            BufferedImage resized = resize(original, width, height, fit, hasAlpha(format));
+
+            Path target = variantLocation.resolve(key);
+            Path temp = Files.createTempFile(variantLocation, key, ".tmp");
+            if (!ImageIO.write(resized, format, temp.toFile())) {
+                Files.delete(temp);
+                throw new FileFormatException("Couldn't write image of type " + format + ".");
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+
+            add(key, Files.size(target));
+            return target;
+        } catch (IOException e) {
+            throw new FileStorageException("Couldn't store the resized image.");
+        }
+    }
+
+    private BufferedImage resize(BufferedImage original, Integer width, Integer height, String fit, boolean alpha) {
+        int originalWidth = original.getWidth();
+        int originalHeight = original.getHeight();
+
+        int targetWidth;
+        int targetHeight;
+        int sourceX = 0;
+        int sourceY = 0;
+        int sourceWidth = originalWidth;
+        int sourceHeight = originalHeight;
+
+        if (width == null || height == null) {
+            double scale = width != null ? (double) width / originalWidth : (double) height / originalHeight;
+            targetWidth = (int) Math.round(originalWidth * scale);
+            targetHeight = (int) Math.round(originalHeight * scale);
+        } else if (fit.equals("contain")) {
+            double scale = Math.min((double) width / originalWidth, (double) height / originalHeight);
+            targetWidth = (int) Math.round(originalWidth * scale);
+            targetHeight = (int) Math.round(originalHeight * scale);
+        } else if (fit.equals("cover")) {
+            double scale = Math.max((double) width / originalWidth, (double) height / originalHeight);
+            sourceWidth = (int) Math.round(width / scale);
+            sourceHeight = (int) Math.round(height / scale);
+            sourceX = (originalWidth - sourceWidth) / 2;
+            sourceY = (originalHeight - sourceHeight) / 2;
+            targetWidth = width;
+            targetHeight = height;
+        } else {
+            targetWidth = width;
+            targetHeight = height;
+        }
+
+        BufferedImage resized = new BufferedImage(Math.max(targetWidth, 1), Math.max(targetHeight, 1),
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D graphics = resized.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        graphics.drawImage(original, 0, 0, resized.getWidth(), resized.getHeight(),
+                sourceX, sourceY, sourceX + sourceWidth, sourceY + sourceHeight, alpha ? null : Color.WHITE, null);
+        graphics.dispose();
+
+        return resized;
+    }
+
+    private String getFormat(String type) {
+        switch (type) {
+            case "image/jpeg":
+            case "image/jpg":
+                return "jpg";
+            case "image/gif":
+                return "gif";
+            case "image/bmp":
+                return "bmp";
+            default:
+                return "png";
+        }
+    }
+
+    private boolean hasAlpha(String format) {
+        return format.equals("png") || format.equals("gif");
+    }
+
+    private synchronized Path lookup(String key) {
+        if (!variants.containsKey(key)) {
+            return null;
+        }
+
+        Path variant = variantLocation.resolve(key);
+        if (!Files.exists(variant)) {
+            size -= variants.remove(key);
+            return null;
+        }
+
+        return variant;
+    }
+
+    private synchronized void add(String key, long variantSize) throws IOException {
+        Long previous = variants.put(key, variantSize);
+        size += variantSize - (previous == null ? 0 : previous);
+
+        Iterator<Map.Entry<String, Long>> eldest = variants.entrySet().iterator();
+        while (size > capacity && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+
+            Files.deleteIfExists(variantLocation.resolve(entry.getKey()));
+            size -= entry.getValue();
+            eldest.remove();
+        }
+    }
+
+    private void loadVariants() throws IOException {
+        List<Path> stored;
+        try (Stream<Path> paths = Files.list(variantLocation)) {
+            stored = paths.collect(Collectors.toList());
+        }
+
+        stored.sort(Comparator.comparingLong(path -> path.toFile().lastModified()));
+        for (Path path : stored) {
+            if (path.getFileName().toString().endsWith(".tmp")) {
+                Files.deleteIfExists(path);
+            } else {
+                variants.put(path.getFileName().toString(), Files.size(path));
+                size += Files.size(path);
+            }
+        }
+    }
+
+    public List<Integer> getAllowedSizes() {
+        return allowedSizes;
+    }
+
+    public void setAllowedSizes(List<Integer> allowedSizes) {
+        this.allowedSizes = allowedSizes;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(long capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getPlaceholderSize() {
+        return placeholderSize;
+    }
+
+    public void setPlaceholderSize(int placeholderSize) {
+        this.placeholderSize = placeholderSize;
+    }
+
+    public float getPlaceholderQuality() {
+        return placeholderQuality;
+    }
+
+    public void setPlaceholderQuality(float placeholderQuality) {
+        this.placeholderQuality = placeholderQuality;
+    }
+}
@@ -0,0 +1,215 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.RatingHistogram;
+import com.tick42.quicksilver.repositories.base.ExtensionRepository;
+import com.tick42.quicksilver.repositories.base.RatingRepository;
+import com.tick42.quicksilver.repositories.base.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PreDestroy;
+import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+@Component
+@ConfigurationProperties(prefix = "rating")
+public class RatingQueue {
+    private final ExtensionRepository extensionRepository;
+    private final UserRepository userRepository;
+    private final RatingRepository ratingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentMap<Long, Delta> pending = new ConcurrentHashMap<>();
+    private final ReadWriteLock ratingLock = new ReentrantReadWriteLock();
+
+    private long flushInterval = 2000;
+    private double priorMean = 3;
+    private double priorWeight = 10;
+
+    public RatingQueue(ExtensionRepository extensionRepository, UserRepository userRepository,
+                       RatingRepository ratingRepository, MeterRegistry meterRegistry,
+                       PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.extensionRepository = extensionRepository;
+        this.userRepository = userRepository;
+        this.ratingRepository = ratingRepository;
+
+        Gauge.builder("ratings.queue.size", pending, Map::size).register(meterRegistry);
+    }
+
+    public Delta add(long extensionId, long ownerId, RatingHistogram histogram) {
+        return pending.merge(extensionId, new Delta(ownerId, histogram), Delta::add);
+    }
+
+    /**
+     * Held by a rating write from before its upsert until its delta is queued, so a rebuild
+     * never reads a committed rating whose delta is still on its way to the queue.
+     */
+    public Lock getRatingLock() {
+        return ratingLock.readLock();
+    }
+
+    public Delta getPending(long extensionId) {
+        return pending.get(extensionId);
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${rating.flushInterval:2000}")
+    public synchronized void flush() {
+        List<Long> extensionIds = new ArrayList<>(pending.keySet());
+        if (extensionIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Delta> drained = new HashMap<>();
+        for (Long extensionId : extensionIds) {
+            drained.put(extensionId, pending.remove(extensionId));
+        }
+
+        boolean synchronization = TransactionSynchronizationManager.isSynchronizationActive();
+        if (synchronization) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                        requeue(drained);
+                    }
+                }
+            });
+        }
+
+        try {
+            Map<Long, Delta> owners = new HashMap<>();
+            List<Long> updated = new ArrayList<>();
+            drained.forEach((extensionId, delta) -> {
+                if (extensionRepository.updateRating(extensionId, delta.getHistogram()) > 0) {
+                    owners.merge(delta.getOwnerId(), delta, Delta::add);
+                    updated.add(extensionId);
+                }
+            });
+
+            if (!updated.isEmpty()) {
+                extensionRepository.updateScores(updated, priorMean, priorWeight);
+            }
+
+            owners.forEach((ownerId, delta) -> userRepository.updateRating(ownerId,
+                    delta.getHistogram().getSum(), delta.getHistogram().getTotal()));
+        } catch (RuntimeException e) {
+            if (!synchronization) {
+                requeue(drained);
+            }
+            throw e;
+        }
+    }
+
+    private void requeue(Map<Long, Delta> drained) {
+        drained.forEach((extensionId, delta) -> pending.merge(extensionId, delta, Delta::add));
+    }
+
+    @Transactional
+    public synchronized void rebuild() {
+        ratingLock.writeLock().lock();
+        try {
+            pending.clear();
+            recompute();
+        } finally {
+            ratingLock.writeLock().unlock();
+        }
+    }
+
+    private void recompute() {
+        extensionRepository.resetRatings();
+        userRepository.resetRatings();
+
+        Map<Long, Delta> extensions = new HashMap<>();
+        try (Stream<Object[]> rows = ratingRepository.streamHistograms()) {
+            rows.forEach(row -> {
+                RatingHistogram histogram = RatingHistogram.of(((Number) row[2]).intValue(), ((Number) row[3]).intValue());
+                extensions.merge((Long) row[0], new Delta((Long) row[1], histogram), Delta::add);
+            });
+        }
+
+        Map<Long, RatingHistogram> owners = new HashMap<>();
+        extensions.forEach((extensionId, delta) -> {
+            extensionRepository.updateRating(extensionId, delta.getHistogram());
+            owners.merge(delta.getOwnerId(), delta.getHistogram(), RatingHistogram::plus);
+        });
+        extensionRepository.updateAllScores(priorMean, priorWeight);
+
+        owners.forEach((ownerId, histogram) ->
+                userRepository.updateRating(ownerId, histogram.getSum(), histogram.getTotal()));
+    }
+
+    @PreDestroy
+    public void close() {
+        transactionTemplate.execute(status -> {
+            flush();
+            return null;
+        });
+    }
+
+    public int getSize() {
+        return pending.size();
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public double getPriorMean() {
+        return priorMean;
+    }
+
+    public void setPriorMean(double priorMean) {
+        this.priorMean = priorMean;
+    }
+
+    public double getPriorWeight() {
+        return priorWeight;
+    }
+
+    public void setPriorWeight(double priorWeight) {
+        this.priorWeight = priorWeight;
+    }
+
+    public static class Delta {
+        private final long ownerId;
+        private final RatingHistogram histogram;
+
+        Delta(long ownerId, RatingHistogram histogram) {
+            this.ownerId = ownerId;
+            this.histogram = histogram;
+        }
+
+        Delta add(Delta other) {
+            return new Delta(ownerId, histogram.plus(other.histogram));
+        }
+
+        public long getOwnerId() {
+            return ownerId;
+        }
+
+        public RatingHistogram getHistogram() {
+            return histogram;
+        }
+    }
+}
@@ -2,100 +2,116 @@ package com.tick42.quicksilver.services;
 
 import com.tick42.quicksilver.exceptions.InvalidRatingException;
 import com.tick42.quicksilver.models.Extension;
-import com.tick42.quicksilver.models.Rating;
-import com.tick42.quicksilver.models.RatingPK;
-import com.tick42.quicksilver.models.UserModel;
-import com.tick42.quicksilver.repositories.base.ExtensionRepository;
+import com.tick42.quicksilver.models.LongIntMap;
+import com.tick42.quicksilver.models.RatingHistogram;
 import com.tick42.quicksilver.repositories.base.RatingRepository;
 import com.tick42.quicksilver.repositories.base.UserRepository;
 import com.tick42.quicksilver.services.base.RatingService;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
 
 @Service
 public class RatingServiceImpl implements RatingService {
 
     private final RatingRepository ratingRepository;
-    private final ExtensionRepository extensionRepository;
     private final UserRepository userRepository;
+    private final RatingQueue ratingQueue;
 
-    public RatingServiceImpl(RatingRepository ratingRepository, ExtensionRepository extensionRepository, UserRepository userRepository) {
+    public RatingServiceImpl(RatingRepository ratingRepository, UserRepository userRepository, RatingQueue ratingQueue) {
         this.ratingRepository = ratingRepository;
-        this.extensionRepository = extensionRepository;
         this.userRepository = userRepository;
+        this.ratingQueue = ratingQueue;
     }
 
     @Override
+    @Transactional
     public Extension rate(Extension extension, int rating, long userId) {
-        if (rating > 5) {
+        if (rating < 1 || rating > 5) {
             throw new InvalidRatingException("Rating must be between 1 and 5");
         }
 
-        Rating newRating = new Rating(rating, extension.getId(), userId);
-        double currentExtensionRating = extension.getRating();
-        double userRatingForExtension = userRatingForExtension(extension.getId(), userId);
+        Lock lock = ratingQueue.getRatingLock();
+        lock.lock();
+        boolean releasedAfterCompletion = false;
+        try {
+            Integer previous = ratingRepository.findRatingForUpdate(extension.getId(), userId);
+            ratingRepository.upsert(extension.getId(), userId, rating);
 
-        newExtensionRating(userRatingForExtension, newRating, extension);
-        newUserRating(currentExtensionRating, extension, rating);
+            RatingHistogram delta = RatingHistogram.of(rating, 1);
+            if (previous != null) {
+                delta = delta.plus(RatingHistogram.of(previous, -1));
+            }
+            RatingHistogram change = delta;
+            long ownerId = extension.getOwner().getId();
+
+            RatingQueue.Delta pending = ratingQueue.getPending(extension.getId());
+            RatingHistogram histogram = extension.getHistogram().plus(change);
+            if (pending != null) {
+                histogram = histogram.plus(pending.getHistogram());
+            }
+            extension.setHistogram(histogram);
+            extension.setTimesRated(histogram.getTotal());
+
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        ratingQueue.add(extension.getId(), ownerId, change);
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        lock.unlock();
+                    }
+                });
+                releasedAfterCompletion = true;
+            } else {
+                ratingQueue.add(extension.getId(), ownerId, change);
+            }
+        } finally {
+            if (!releasedAfterCompletion) {
+                lock.unlock();
+            }
+        }
 
         return extension;
     }
 
     @Override
     public int userRatingForExtension(long extensionId, long userId) {
-        return ratingRepository.findById(
-                new RatingPK(extensionId,userId)).orElse(new Rating(0)).getRating();
+        Integer rating = ratingRepository.findRatingByUser(extensionId, userId);
+        return rating == null ? NO_RATING : rating;
     }
 
-    private void newUserRating(double currentExtensionRating, Extension extension, int rating) {
-        UserModel userModel = extension.getOwner();
-        double userRating = userModel.getRating();
-        int extensionsRated = userModel.getExtensionsRated();
-
-        if (currentExtensionRating == 0) {
-            userModel.setRating((userRating * extensionsRated + rating) / (extensionsRated + 1));
-            userModel.setExtensionsRated(userModel.getExtensionsRated() + 1);
-            userRepository.save(userModel);
-        } else {
-            userModel.setRating(((userRating * extensionsRated - currentExtensionRating) + extension.getRating()) / extensionsRated);
-            userRepository.save(userModel);
+    @Override
+    public LongIntMap userRatingsForExtensions(Collection<Long> extensionIds, long userId) {
+        LongIntMap ratings = new LongIntMap(extensionIds.size());
+        if (extensionIds.isEmpty()) {
+            return ratings;
         }
+
+        ratingRepository.findRatingsByUser(userId, extensionIds).forEach(row ->
+                ratings.put((Long) row[0], (Integer) row[1]));
+
+        return ratings;
     }
 
     @Override
-    public Extension newExtensionRating(double userRatingForExtension, Rating newRating, Extension extension) {
-
-        if (userRatingForExtension == 0) {
-            ratingRepository.save(newRating);
-            extension.setRating((extension.getRating() * extension.getTimesRated() + newRating.getRating()) / (extension.getTimesRated() + 1));
-            extension.setTimesRated(extension.getTimesRated() + 1);
-            extensionRepository.save(extension);
-        } else {
-            extension.setRating(((extension.getRating() * extension.getTimesRated() - userRatingForExtension) + newRating.getRating()) / (extension.getTimesRated()));
-            extensionRepository.save(extension);
-            ratingRepository.save(newRating);
-        }
-
-        return extension;
+    public void rebuildAggregates() {
+        ratingQueue.rebuild();
     }
 
     @Override
+    @Transactional
     public void updateRatingOnExtensionDelete(Extension extension) {
-        double extensionRating = extension.getRating();
-        UserModel userModel = extension.getOwner();
-
-        double userRating = userModel.getRating();
-        int userRatedExtensions = userModel.getExtensionsRated();
-
-        if (userRatedExtensions > 1 || extensionRating == 0) {
-            if (extensionRating > 0) {
-                userModel.setRating((userRating * userRatedExtensions - extensionRating) / (userRatedExtensions - 1));
-                userModel.setExtensionsRated(userRatedExtensions - 1);
-                userRepository.save(userModel);
-            }
-        }else{
-            userModel.setRating(0);
-            userModel.setExtensionsRated(0);
-            userRepository.save(userModel);
+        long ownerId = extension.getOwner().getId();
+        if (extension.getTimesRated() > 0) {
+            RatingHistogram histogram = extension.getHistogram();
+            userRepository.updateRating(ownerId, -histogram.getSum(), -histogram.getTotal());
         }
     }
-}
\ No newline at end of file
+}
@@ -1,4 +1,5 @@
 package com.tick42.quicksilver.services;
+import com.tick42.quicksilver.aspects.RetryOnConflict;
 import com.tick42.quicksilver.exceptions.*;
 import com.tick42.quicksilver.models.UserDetails;
 import com.tick42.quicksilver.models.UserModel;
@@ -15,6 +16,7 @@ import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import javax.persistence.EntityNotFoundException;
+import javax.transaction.Transactional;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +32,8 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     }
 
     @Override
+    @RetryOnConflict
+    @Transactional
     public UserModel setState(long userId, String state) {
         UserModel user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
@@ -113,6 +117,8 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     }
 
     @Override
+    @RetryOnConflict
+    @Transactional
     public UserModel changePassword(NewPasswordSpec passwordSpec){
         UserModel user = userRepository.findByUsername(passwordSpec.getUsername());
 
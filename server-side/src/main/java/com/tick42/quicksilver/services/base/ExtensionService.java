@@ -8,6 +8,8 @@ public interface ExtensionService {
 
     Extension findById(long id, UserDetails loggedUser);
 
+    List<Extension> findPublishedByIds(List<Long> ids);
+
     Extension update(Extension extension);
 
     Extension save(Extension extension);
@@ -20,6 +22,8 @@ public interface ExtensionService {
 
     List<Extension> findMostDownloaded(Integer mostDownloadedCount);
 
+    List<Extension> findTopRated(Integer topRatedCount);
+
     PageDto<Extension> findPageWithCriteria(String name, String orderBy, Integer page, Integer perPage);
 
     long findTotalResults(String name);
@@ -1,15 +1,27 @@
 package com.tick42.quicksilver.services.base;
 
+import com.tick42.quicksilver.models.Extension;
 import com.tick42.quicksilver.models.File;
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
 
 public interface FileService {
     Resource getAsResource(String fileName);
 
+    Resource getCompressedAsResource(String fileName);
+
     File create(MultipartFile receivedFile, String name);
 
+    File store(MultipartFile receivedFile, String name);
+
     File increaseCount(File file);
 
+    void increaseCount(List<File> files);
+
+    void writeBundle(List<Extension> extensions, OutputStream outputStream) throws IOException;
+
     File findByName(String fileName);
 }
@@ -1,26 +1,40 @@
 package com.tick42.quicksilver.services.base;
 
+import com.tick42.quicksilver.models.GitHubHistory;
 import com.tick42.quicksilver.models.GitHubModel;
 import com.tick42.quicksilver.models.Settings;
 import com.tick42.quicksilver.models.specs.GitHubSettingSpec;
 import com.tick42.quicksilver.models.UserModel;
+import com.tick42.quicksilver.services.GitHubTokenPool;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
+import java.util.List;
+
 public interface GitHubService {
     void setRemoteDetails(GitHubModel gitHubModel);
 
     void getRepoDetails(GitHubModel gitHubModel) throws Exception;
 
-    GitHubModel updateGithub(long githubId, String githubLink);
-
     GitHubModel generateGitHub(String link);
 
+    GitHubModel lookupGitHub(String link);
+
+    GitHubModel generatePendingGitHub(String link);
+
+    void enrichAfterCommit(GitHubModel gitHubModel);
+
+    GitHubModel findById(long id);
+
+    List<GitHubHistory.Sample> getHistory(long id, int days);
+
     void updateExtensionDetails();
 
     Settings createScheduledTask(UserModel user, ScheduledTaskRegistrar taskRegistrar, GitHubSettingSpec gitHubSettingSpec);
 
     Settings getSettings(UserModel user);
 
+    List<GitHubTokenPool.Token> getTokens();
+
     void delete(GitHubModel gitHubModel);
 
     GitHubModel fetchGitHub(GitHubModel gitHubModel, UserModel userModel);
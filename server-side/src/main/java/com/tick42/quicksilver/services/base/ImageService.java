@@ -0,0 +1,12 @@
+package com.tick42.quicksilver.services.base;
+
+import com.tick42.quicksilver.models.File;
+import org.springframework.core.io.Resource;
+import java.io.InputStream;
+import java.util.function.Supplier;
+
+public interface ImageService {
+    Resource getVariant(File image, Supplier<Resource> source, Integer width, Integer height, String fit);
+
+    String generatePlaceholder(InputStream source);
+}
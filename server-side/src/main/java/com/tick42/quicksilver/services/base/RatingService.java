@@ -1,14 +1,19 @@
 package com.tick42.quicksilver.services.base;
 
 import com.tick42.quicksilver.models.Extension;
-import com.tick42.quicksilver.models.Rating;
+import com.tick42.quicksilver.models.LongIntMap;
+import java.util.Collection;
 
 public interface RatingService {
+    int NO_RATING = 0;
+
     Extension rate(Extension extension, int rating, long userId);
 
     int userRatingForExtension(long extensionId, long userId);
 
-    Extension newExtensionRating(double userRatingForExtension, Rating newRating, Extension extension);
+    LongIntMap userRatingsForExtensions(Collection<Long> extensionIds, long userId);
 
     void updateRatingOnExtensionDelete(Extension extension);
+
+    void rebuildAggregates();
 }
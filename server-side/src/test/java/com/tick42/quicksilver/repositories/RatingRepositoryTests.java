@@ -0,0 +1,71 @@
+package com.tick42.quicksilver.repositories;
+
+import com.tick42.quicksilver.models.Rating;
+import com.tick42.quicksilver.repositories.base.RatingRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.tick42.quicksilver.repositories.RatingRepositoryTests$Recorder")
+public class RatingRepositoryTests {
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void findRatingByUser_whenRated_shouldReturnRating() {
+        //Arrange
+        ratingRepository.saveAll(Arrays.asList(new Rating(4, 1, 2), new Rating(2, 1, 3), new Rating(5, 12, 2)));
+
+        //Act
+        Integer rating = ratingRepository.findRatingByUser(1, 2);
+        Integer missing = ratingRepository.findRatingByUser(2, 1);
+
+        //Assert
+        Assert.assertEquals(Integer.valueOf(4), rating);
+        Assert.assertNull(missing);
+    }
+
+    @Test
+    public void findRatingByUser_shouldUsePrimaryKeyIndex() {
+        //Arrange
+        Recorder.statements.clear();
+
+        //Act
+        ratingRepository.findRatingByUser(1, 2);
+
+        //Assert
+        Assert.assertEquals(Recorder.statements.toString(), 1, Recorder.statements.size());
+        String sql = Recorder.statements.get(0);
+        Assert.assertFalse(sql, sql.toLowerCase().contains(" like "));
+
+        String plan = jdbcTemplate.queryForObject("explain " + sql.replaceFirst("\\?", "1").replaceFirst("\\?", "2"), String.class);
+        Assert.assertTrue(plan, plan.contains("PRIMARY_KEY"));
+        Assert.assertFalse(plan, plan.contains("tableScan"));
+    }
+
+    public static class Recorder implements StatementInspector {
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.aspects.ConflictRetryAspect;
+import com.tick42.quicksilver.models.Extension;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConflictRetryAspectTests {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+
+    @Mock
+    private Signature signature;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConflictRetryAspect aspect;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        aspect = new ConflictRetryAspect(meterRegistry);
+        aspect.setBackoff(1);
+        aspect.setMaxBackoff(1);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(signature.toShortString()).thenReturn("update()");
+    }
+
+    @Test
+    public void retry_whenConflictIsTransient_shouldRetryAndReturnResult() throws Throwable {
+        //Arrange
+        when(joinPoint.proceed())
+                .thenThrow(new ObjectOptimisticLockingFailureException(Extension.class, 1L))
+                .thenReturn("updated");
+
+        //Act
+        Object result = aspect.retry(joinPoint);
+
+        //Assert
+        Assert.assertEquals("updated", result);
+        verify(joinPoint, times(2)).proceed();
+        Assert.assertEquals(1, meterRegistry.counter("optimistic.lock.retries", "method", "update()").count(), 0);
+    }
+
+    @Test(expected = ObjectOptimisticLockingFailureException.class)
+    public void retry_whenConflictPersists_shouldRethrowAfterMaxAttempts() throws Throwable {
+        //Arrange
+        when(joinPoint.proceed()).thenThrow(new ObjectOptimisticLockingFailureException(Extension.class, 1L));
+
+        //Act
+        try {
+            aspect.retry(joinPoint);
+        } finally {
+            //Assert
+            verify(joinPoint, times(3)).proceed();
+            Assert.assertEquals(1, meterRegistry.counter("optimistic.lock.exhausted", "method", "update()").count(), 0);
+        }
+    }
+}
@@ -463,6 +463,73 @@ public class ExtensionServiceImplTests {
         Assert.assertEquals(actualExtension.getName(), "newName");
     }
 
+    @Test
+    public void update_withUploadedFilesAndSameGitHubLink_shouldKeepCurrentGitHub() {
+        //Arrange
+        UserModel owner = new UserModel();
+        owner.setId(1);
+        owner.setRole("ROLE_USER");
+
+        GitHubModel github = new GitHubModel("https://github.com/user/repo", "user", "repo");
+        github.setId(5);
+
+        Extension extension = new Extension();
+        extension.setId(1);
+        extension.setOwner(owner);
+        extension.setGithub(github);
+        extension.setFile(new File("1", 10, "application/zip"));
+
+        Extension edited = new Extension();
+        edited.setId(1);
+        edited.setOwner(owner);
+        edited.setGithub(new GitHubModel("https://github.com/user/repo", "user", "repo"));
+        File image = new File("1image.png", 10, "image/png");
+        edited.setImage(image);
+
+        when(extensionRepository.findById(1L)).thenReturn(Optional.of(extension));
+        when(extensionRepository.save(extension)).thenReturn(extension);
+
+        //Act
+        Extension updated = extensionService.update(edited);
+
+        //Assert
+        Assert.assertSame(github, updated.getGithub());
+        Assert.assertSame(image, updated.getImage());
+        Assert.assertEquals("1", updated.getFile().getName());
+    }
+
+    @Test
+    public void update_withNewGitHubLink_shouldReplaceModelUnderCurrentId() {
+        //Arrange
+        UserModel owner = new UserModel();
+        owner.setId(1);
+        owner.setRole("ROLE_USER");
+
+        GitHubModel github = new GitHubModel("https://github.com/user/repo", "user", "repo");
+        github.setId(5);
+
+        Extension extension = new Extension();
+        extension.setId(1);
+        extension.setOwner(owner);
+        extension.setGithub(github);
+
+        Extension edited = new Extension();
+        edited.setId(1);
+        edited.setOwner(owner);
+        GitHubModel replacement = new GitHubModel("https://github.com/user/other", "user", "other");
+        edited.setGithub(replacement);
+
+        when(extensionRepository.findById(1L)).thenReturn(Optional.of(extension));
+        when(extensionRepository.save(extension)).thenReturn(extension);
+
+        //Act
+        Extension updated = extensionService.update(edited);
+
+        //Assert
+        Assert.assertSame(replacement, updated.getGithub());
+        Assert.assertEquals(5, replacement.getId());
+    }
+
     @Test(expected = NullPointerException.class)
     public void delete_whenExtensionNonExistent_ShouldThrow() {
         UserDetails userDetails = new UserDetails(new UserModel(), new ArrayList<>());
@@ -0,0 +1,265 @@
+package com.tick42.quicksilver.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-process stand-in for the parts of the GitHub REST and GraphQL APIs the refresh uses.
+ * Repository stats and failures are derived from the repository name and the seed, so
+ * the same configuration answers the same way regardless of request order.
+ */
+public class FakeGitHubServer implements AutoCloseable {
+    private static final Pattern repositoryPath = Pattern.compile("^/repos/([^/]+)/([^/]+)(?:/(commits|pulls))?$");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private long seed = 42;
+    private long latency;
+    private double errorRate;
+    private int rateLimit = 5000;
+    private int maxIssues = 200;
+    private int maxCommits = 5000;
+    private int descriptionSize = 64;
+
+    public FakeGitHubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        resetRateLimit();
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public String getGraphQlEndpoint() {
+        return getEndpoint() + "/graphql";
+    }
+
+    public void resetRateLimit() {
+        remaining.set(rateLimit);
+    }
+
+    public void resetRequests() {
+        requests.clear();
+    }
+
+    public int getRequests() {
+        return requests.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    public int getRequests(String kind) {
+        AtomicInteger count = requests.get(kind);
+        return count == null ? 0 : count.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/user")) {
+                respond(exchange, 200, "{\"login\":\"admin\"}");
+            } else if (path.equals("/rate_limit")) {
+                respond(exchange, 200, "{\"resources\":{},\"rate\":{\"limit\":" + rateLimit + ",\"remaining\":"
+                        + Math.max(0, remaining.get()) + ",\"reset\":" + reset() + "}}");
+            } else if (path.equals("/graphql")) {
+                count("graphql");
+                delay();
+                graphQl(exchange);
+            } else {
+                rest(exchange, path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void rest(HttpExchange exchange, String path) throws IOException, InterruptedException {
+        String fullName;
+        String kind;
+        Matcher matcher = repositoryPath.matcher(path);
+        if (matcher.matches()) {
+            fullName = matcher.group(1) + "/" + matcher.group(2);
+            kind = matcher.group(3) == null ? "repository" : matcher.group(3);
+        } else {
+            respond(exchange, 404, "{\"message\":\"Not Found\"}");
+            return;
+        }
+
+        count(kind);
+        delay();
+
+        if (remaining.getAndDecrement() <= 0) {
+            respond(exchange, 403, "{\"message\":\"API rate limit exceeded\"}");
+            return;
+        }
+        if (fails(fullName)) {
+            respond(exchange, 502, "{\"message\":\"Server Error\"}");
+            return;
+        }
+
+        Repository repository = new Repository(fullName);
+        switch (kind) {
+            case "repository":
+                respond(exchange, 200, repository.toJson());
+                break;
+            case "pulls":
+                if (repository.pullRequests == 0) {
+                    respond(exchange, 200, "[]");
+                    break;
+                }
+                exchange.getResponseHeaders().add("Link", "<" + getEndpoint() + path + "?state=open&per_page=1&page="
+                        + repository.pullRequests + ">; rel=\"last\"");
+                respond(exchange, 200, "[{\"number\":1,\"state\":\"open\"}]");
+                break;
+            default:
+                exchange.getResponseHeaders().add("Link", "<" + getEndpoint() + path + "?per_page=1&page=2>; rel=\"next\", <"
+                        + getEndpoint() + path + "?per_page=1&page=" + repository.commits + ">; rel=\"last\"");
+                respond(exchange, 200, "[{\"sha\":\"" + Integer.toHexString(fullName.hashCode()) + "\",\"commit\":{\"committer\":{\"date\":\""
+                        + repository.lastCommit + "\"}}}]");
+        }
+    }
+
+    private void graphQl(HttpExchange exchange) throws IOException {
+        JsonNode variables = objectMapper.readTree(exchange.getRequestBody()).path("variables");
+        int repositories = variables.size() / 2;
+
+        StringBuilder data = new StringBuilder("{\"data\":{\"rateLimit\":{\"cost\":1,\"remaining\":4999}");
+        for (int i = 0; i < repositories; i++) {
+            String fullName = variables.path("o" + i).asText() + "/" + variables.path("n" + i).asText();
+            if (fails(fullName)) {
+                respond(exchange, 502, "{\"message\":\"Something went wrong while executing your query.\"}");
+                return;
+            }
+
+            Repository repository = new Repository(fullName);
+            data.append(",\"r").append(i).append("\":{\"stargazers\":{\"totalCount\":").append(repository.stars)
+                    .append("},\"forkCount\":").append(repository.forks)
+                    .append(",\"pullRequests\":{\"totalCount\":").append(repository.pullRequests)
+                    .append("},\"issues\":{\"totalCount\":").append(repository.openIssues - repository.pullRequests)
+                    .append("},\"defaultBranchRef\":{\"target\":{\"committedDate\":\"").append(repository.lastCommit).append("\"}}}");
+        }
+        respond(exchange, 200, data.append("}}").toString());
+    }
+
+    private boolean fails(String fullName) {
+        return errorRate > 0 && new Random(seed ^ fullName.hashCode() * 31L).nextDouble() < errorRate;
+    }
+
+    private void delay() throws InterruptedException {
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+    }
+
+    private void count(String kind) {
+        requests.computeIfAbsent(kind, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private long reset() {
+        return Instant.now().plus(1, ChronoUnit.HOURS).getEpochSecond();
+    }
+
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.getResponseHeaders().add("X-RateLimit-Limit", String.valueOf(rateLimit));
+        exchange.getResponseHeaders().add("X-RateLimit-Remaining", String.valueOf(Math.max(0, remaining.get())));
+        exchange.getResponseHeaders().add("X-RateLimit-Reset", String.valueOf(reset()));
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public void setRateLimit(int rateLimit) {
+        this.rateLimit = rateLimit;
+        resetRateLimit();
+    }
+
+    public void setMaxIssues(int maxIssues) {
+        this.maxIssues = maxIssues;
+    }
+
+    public void setMaxCommits(int maxCommits) {
+        this.maxCommits = maxCommits;
+    }
+
+    public void setDescriptionSize(int descriptionSize) {
+        this.descriptionSize = descriptionSize;
+    }
+
+    private class Repository {
+        private final String fullName;
+        private final int openIssues;
+        private final int pullRequests;
+        private final int stars;
+        private final int forks;
+        private final int commits;
+        private final String lastCommit;
+
+        private Repository(String fullName) {
+            Random random = new Random(seed ^ fullName.hashCode());
+            this.fullName = fullName;
+            this.openIssues = random.nextInt(maxIssues + 1);
+            this.pullRequests = openIssues == 0 ? 0 : random.nextInt(openIssues + 1);
+            this.stars = random.nextInt(10000);
+            this.forks = random.nextInt(1000);
+            this.commits = 1 + random.nextInt(Math.max(1, maxCommits));
+            this.lastCommit = Instant.ofEpochSecond(1500000000L + random.nextInt(50000000)).toString();
+        }
+
+        private String toJson() {
+            String[] owner = fullName.split("/", 2);
+            StringBuilder description = new StringBuilder(descriptionSize);
+            for (int i = 0; i < descriptionSize; i++) {
+                description.append((char) ('a' + i % 26));
+            }
+
+            return "{\"name\":\"" + owner[1] + "\",\"full_name\":\"" + fullName + "\",\"owner\":{\"login\":\"" + owner[0]
+                    + "\"},\"description\":\"" + description + "\",\"open_issues_count\":" + openIssues
+                    + ",\"stargazers_count\":" + stars + ",\"forks_count\":" + forks + ",\"forks\":" + forks + "}";
+        }
+    }
+}
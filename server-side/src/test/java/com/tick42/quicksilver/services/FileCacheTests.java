@@ -0,0 +1,128 @@
+package com.tick42.quicksilver.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.Resource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class FileCacheTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileCache fileCache;
+
+    @Before
+    public void setUp() {
+        fileCache = new FileCache(new SimpleMeterRegistry());
+        fileCache.setCapacity(10);
+        fileCache.setMaxEntrySize(6);
+    }
+
+    @Test
+    public void get_whenCalledTwice_shouldServeSecondFromCache() throws IOException {
+        //Arrange
+        Path path = write("1image.png", "abc");
+
+        //Act
+        fileCache.get("1image.png", path);
+        Files.delete(path);
+        Resource resource = fileCache.get("1image.png", path);
+
+        //Assert
+        Assert.assertEquals("abc", read(resource));
+        Assert.assertEquals(0.5, fileCache.getHitRate(), 0);
+    }
+
+    @Test
+    public void get_whenFileLargerThanMaxEntrySize_shouldReturnNull() throws IOException {
+        //Arrange
+        Path path = write("1image.png", "abcdefg");
+
+        //Act
+        Resource resource = fileCache.get("1image.png", path);
+        Files.delete(path);
+        Resource again = fileCache.get("1image.png", path);
+
+        //Assert
+        Assert.assertNull(resource);
+        Assert.assertNull(again);
+        Assert.assertEquals(0, fileCache.getSize());
+        Assert.assertEquals(0, fileCache.getHitRate(), 0);
+    }
+
+    @Test
+    public void get_whenOversizedFileReplaced_shouldCacheNewContent() throws IOException {
+        //Arrange
+        Path path = write("1image.png", "abcdefg");
+        fileCache.get("1image.png", path);
+        write("1image.png", "abc");
+
+        //Act
+        fileCache.invalidate("1image.png");
+        Resource resource = fileCache.get("1image.png", path);
+
+        //Assert
+        Assert.assertEquals("abc", read(resource));
+    }
+
+    @Test
+    public void get_whenFileMissing_shouldReturnNullWithoutCountingMiss() throws IOException {
+        //Act
+        Resource resource = fileCache.get("1image.png", folder.getRoot().toPath().resolve("1image.png"));
+
+        //Assert
+        Assert.assertNull(resource);
+        Assert.assertEquals(0, fileCache.getHitRate(), 0);
+    }
+
+    @Test
+    public void get_whenCapacityExceeded_shouldEvictLeastRecentlyUsed() throws IOException {
+        //Arrange
+        Path first = write("1image.png", "aaaa");
+        Path second = write("2image.png", "bbbb");
+        Path third = write("3image.png", "cccc");
+
+        //Act
+        fileCache.get("1image.png", first);
+        fileCache.get("2image.png", second);
+        fileCache.get("1image.png", first);
+        fileCache.get("3image.png", third);
+        Files.delete(second);
+
+        //Assert
+        Assert.assertEquals(8, fileCache.getSize());
+        Assert.assertEquals("aaaa", read(fileCache.get("1image.png", first)));
+    }
+
+    @Test
+    public void invalidate_whenFileOverwritten_shouldReloadFromDisk() throws IOException {
+        //Arrange
+        Path path = write("1image.png", "old");
+        fileCache.get("1image.png", path);
+
+        //Act
+        write("1image.png", "new");
+        fileCache.invalidate("1image.png");
+
+        //Assert
+        Assert.assertEquals("new", read(fileCache.get("1image.png", path)));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(folder.getRoot().toPath().resolve(name), content.getBytes());
+    }
+
+    private String read(Resource resource) throws IOException {
+        try (InputStream inputStream = resource.getInputStream()) {
+            return IOUtils.toString(inputStream, "UTF-8");
+        }
+    }
+}
@@ -2,16 +2,31 @@ package com.tick42.quicksilver.services;
 
 import com.tick42.quicksilver.exceptions.UnauthorizedExtensionModificationException;
 import com.tick42.quicksilver.models.Extension;
+import com.tick42.quicksilver.models.File;
 import com.tick42.quicksilver.models.UserModel;
 import com.tick42.quicksilver.repositories.base.ExtensionRepository;
+import com.tick42.quicksilver.repositories.base.FileRepository;
 import com.tick42.quicksilver.repositories.base.UserRepository;
+import com.tick42.quicksilver.services.base.ImageService;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -25,6 +40,15 @@ public class FileServiceImplTests {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    FileRepository fileRepository;
+
+    @Mock
+    FileCache fileCache;
+
+    @Mock
+    ImageService imageService;
+
     @InjectMocks
     private FileServiceImpl fileService;
 
@@ -104,4 +128,127 @@ public class FileServiceImplTests {
         fileService.create(multipartFile, "name");
     }
 
+    @Test
+    public void increaseCount_whenGivenFile_shouldUpdateWithoutSaving() {
+        //Arrange
+        File file = new File("1_file.txt", 1, "text/plain");
+        file.setId(1);
+        file.setDownloadCount(2);
+
+        //Act
+        File result = fileService.increaseCount(file);
+
+        //Assert
+        verify(fileRepository, times(1)).increaseDownloadCount(Collections.singletonList(1L));
+        verify(fileRepository, never()).save(any(File.class));
+        Assert.assertEquals(3, result.getDownloadCount());
+    }
+
+    @Test
+    public void increaseCount_whenGivenFiles_shouldUpdateAllInOneQuery() {
+        //Arrange
+        File first = new File("1_file.txt", 1, "text/plain");
+        first.setId(1);
+        File second = new File("2_file.txt", 1, "text/plain");
+        second.setId(2);
+        second.setDownloadCount(4);
+
+        //Act
+        fileService.increaseCount(Arrays.asList(first, second));
+
+        //Assert
+        verify(fileRepository, times(1)).increaseDownloadCount(Arrays.asList(1L, 2L));
+        Assert.assertEquals(1, first.getDownloadCount());
+        Assert.assertEquals(5, second.getDownloadCount());
+    }
+
+    @Test
+    public void writeBundle_whenGivenExtensions_shouldStoreCompressedFilesWithoutDeflating() throws IOException {
+        //Arrange
+        Path text = Paths.get("./uploads/bundle-test_file.txt");
+        Path archive = Paths.get("./uploads/bundle-test_file.zip");
+        Files.write(text, "text content".getBytes());
+        Files.write(archive, "archive content".getBytes());
+
+        Extension first = new Extension("Extension", Collections.emptySet());
+        first.setFile(new File("bundle-test_file.txt", 12, "text/plain"));
+        Extension second = new Extension("Extension", Collections.emptySet());
+        second.setFile(new File("bundle-test_file.zip", 15, "application/zip"));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        //Act
+        try {
+            fileService.writeBundle(Arrays.asList(first, second), outputStream);
+        } finally {
+            Files.delete(text);
+            Files.delete(archive);
+        }
+
+        //Assert
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            ZipEntry entry = zip.getNextEntry();
+            Assert.assertEquals("Extension.txt", entry.getName());
+            Assert.assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+
+            entry = zip.getNextEntry();
+            Assert.assertEquals("Extension.zip", entry.getName());
+            Assert.assertEquals(ZipEntry.STORED, entry.getMethod());
+            Assert.assertNull(zip.getNextEntry());
+        }
+    }
+
+    @Test
+    public void create_whenFileCompressible_shouldStoreCompressedAndServeDecompressed() throws IOException {
+        //Arrange
+        StringBuilder svg = new StringBuilder("<svg>");
+        for (int i = 0; i < 200; i++) {
+            svg.append("<rect width=\"10\" height=\"10\"/>");
+        }
+        byte[] content = svg.append("</svg>").toString().getBytes();
+
+        when(multipartFile.getOriginalFilename()).thenReturn("image.svg");
+        when(multipartFile.getContentType()).thenReturn("image/svg+xml");
+        when(multipartFile.getSize()).thenReturn((long) content.length);
+        when(multipartFile.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+
+        //Act
+        try {
+            fileService.create(multipartFile, "compress-test");
+
+            //Assert
+            Assert.assertTrue(fileService.getCompressedAsResource("compress-test.svg").contentLength() < content.length);
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(fileService.getAsResource("compress-test.svg").getInputStream()));
+        } finally {
+            Files.deleteIfExists(Paths.get("./uploads/compress-test.svg.gz"));
+        }
+    }
+
+    @Test
+    public void store_whenExtensionFileIsText_shouldSkipImageCheckAndCompress() throws IOException {
+        //Arrange
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            script.append("console.log('line ").append(i % 10).append("');\n");
+        }
+        byte[] content = script.toString().getBytes();
+
+        when(multipartFile.getOriginalFilename()).thenReturn("extension.js");
+        when(multipartFile.getContentType()).thenReturn("application/javascript");
+        when(multipartFile.getSize()).thenReturn((long) content.length);
+        when(multipartFile.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+
+        //Act
+        try {
+            File file = fileService.store(multipartFile, "store-test");
+
+            //Assert
+            Assert.assertNull(file.getPlaceholder());
+            Assert.assertTrue(fileService.getCompressedAsResource("store-test.js").contentLength() < content.length);
+            Assert.assertArrayEquals(content, IOUtils.toByteArray(fileService.getAsResource("store-test.js").getInputStream()));
+            verifyZeroInteractions(imageService);
+        } finally {
+            Files.deleteIfExists(Paths.get("./uploads/store-test.js.gz"));
+        }
+    }
 }
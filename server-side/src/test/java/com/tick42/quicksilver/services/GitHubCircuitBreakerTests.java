@@ -0,0 +1,101 @@
+package com.tick42.quicksilver.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GitHubCircuitBreakerTests {
+    private long now;
+    private GitHubCircuitBreaker circuitBreaker;
+
+    @Before
+    public void setUp() {
+        circuitBreaker = new GitHubCircuitBreaker(new SimpleMeterRegistry(), () -> now);
+        circuitBreaker.setFailureThreshold(2);
+        circuitBreaker.setOpenDuration(1000);
+    }
+
+    @Test
+    public void tryAcquire_whenFailuresReachThreshold_shouldRejectUntilOpenDurationPasses() {
+        //Arrange
+        circuitBreaker.tryAcquire().failure();
+        circuitBreaker.tryAcquire().failure();
+
+        //Act
+        GitHubCircuitBreaker.Permit rejected = circuitBreaker.tryAcquire();
+        now = 1000;
+        GitHubCircuitBreaker.Permit trial = circuitBreaker.tryAcquire();
+
+        //Assert
+        Assert.assertNull(rejected);
+        Assert.assertNotNull(trial);
+        Assert.assertEquals(GitHubCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        Assert.assertEquals(1, circuitBreaker.getRejected());
+    }
+
+    @Test
+    public void tryAcquire_whenSuccessResetsFailures_shouldStayClosed() {
+        //Arrange
+        circuitBreaker.tryAcquire().failure();
+        circuitBreaker.tryAcquire().success();
+        circuitBreaker.tryAcquire().failure();
+
+        //Act
+        GitHubCircuitBreaker.Permit permit = circuitBreaker.tryAcquire();
+
+        //Assert
+        Assert.assertNotNull(permit);
+        Assert.assertEquals(GitHubCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void tryAcquire_whenHalfOpen_shouldAllowSingleTrial() {
+        //Arrange
+        circuitBreaker.tryAcquire().failure();
+        circuitBreaker.tryAcquire().failure();
+        now = 1000;
+
+        //Act
+        GitHubCircuitBreaker.Permit trial = circuitBreaker.tryAcquire();
+        GitHubCircuitBreaker.Permit second = circuitBreaker.tryAcquire();
+        trial.success();
+
+        //Assert
+        Assert.assertNull(second);
+        Assert.assertEquals(GitHubCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assert.assertNotNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void tryAcquire_whenTrialFails_shouldReopen() {
+        //Arrange
+        circuitBreaker.tryAcquire().failure();
+        circuitBreaker.tryAcquire().failure();
+        now = 1000;
+
+        //Act
+        circuitBreaker.tryAcquire().failure();
+
+        //Assert
+        Assert.assertEquals(GitHubCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assert.assertNull(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void tryAcquire_whenTrialReleasedWithoutResult_shouldAllowAnotherTrial() {
+        //Arrange
+        circuitBreaker.tryAcquire().failure();
+        circuitBreaker.tryAcquire().failure();
+        now = 1000;
+
+        //Act
+        GitHubCircuitBreaker.Permit trial = circuitBreaker.tryAcquire();
+        trial.release();
+        trial.failure();
+
+        //Assert
+        Assert.assertEquals(GitHubCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        Assert.assertNotNull(circuitBreaker.tryAcquire());
+    }
+}
@@ -0,0 +1,82 @@
+package com.tick42.quicksilver.services;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GitHubConnectorTests {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private GitHubConnector connector;
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/repos/user/repo", exchange -> {
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.getResponseHeaders().add("Cache-Control", "private, max-age=0");
+
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] body = "{\"name\":\"repo\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        connector = new GitHubConnector(new SimpleMeterRegistry());
+        connector.setDirectory(folder.getRoot().getAbsolutePath());
+        connector.init();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        connector.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void connect_whenResponseUnchanged_shouldRevalidateAndServeFromCache() throws IOException {
+        //Arrange
+        URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/repos/user/repo");
+
+        //Act
+        String first = read(connector.connect(url));
+        String second = read(connector.connect(url));
+
+        //Assert
+        Assert.assertEquals("{\"name\":\"repo\"}", first);
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(1, notModified.get());
+        Assert.assertEquals(0.5, connector.getHitRate(), 0);
+    }
+
+    private String read(HttpURLConnection connection) throws IOException {
+        try (InputStream inputStream = connection.getInputStream()) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.tick42.quicksilver.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tick42.quicksilver.models.GitHubModel;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class GitHubGraphQlFetcherTests {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+
+    private HttpServer server;
+    private GitHubGraphQlFetcher fetcher;
+    private volatile String recorded;
+    private volatile int repositoriesPerPoint = Integer.MAX_VALUE;
+    private volatile int maxReposPerQuery = Integer.MAX_VALUE;
+    private volatile int rejectWith;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/graphql", exchange -> {
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            int repositories = request.path("variables").size() / 2;
+            batchSizes.add(repositories);
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+
+            if (rejectWith != 0) {
+                respond(exchange, rejectWith, "{\"message\":\"Bad credentials\"}");
+            } else if (repositories > maxReposPerQuery) {
+                respond(exchange, 502, "{\"message\":\"Something went wrong while executing your query.\"}");
+            } else if (recorded != null) {
+                respond(exchange, 200, recorded);
+            } else {
+                respond(exchange, 200, generate(repositories));
+            }
+        });
+        server.start();
+
+        fetcher = new GitHubGraphQlFetcher();
+        fetcher.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort() + "/graphql");
+        fetcher.init();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void fetch_whenResponseRecorded_shouldApplyStatsAndReturnUnresolvedRepositories() throws IOException {
+        //Arrange
+        try (InputStream inputStream = getClass().getResourceAsStream("/github/graphql-repositories.json")) {
+            recorded = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+        List<GitHubModel> gitHubModels = models(3);
+
+        //Act
+        List<GitHubModel> failed = fetcher.fetch("token", gitHubModels).getFailed();
+
+        //Assert
+        Assert.assertEquals(Arrays.asList(3), batchSizes);
+        Assert.assertEquals("bearer token", authorizations.get(0));
+        Assert.assertEquals(Arrays.asList(gitHubModels.get(1)), failed);
+
+        GitHubModel first = gitHubModels.get(0);
+        Assert.assertEquals(3, first.getPullRequests());
+        Assert.assertEquals(9, first.getOpenIssues());
+        Assert.assertEquals(120, first.getStars());
+        Assert.assertEquals(14, first.getForks());
+        Assert.assertEquals(ZonedDateTime.parse("2018-09-12T08:21:40Z")
+                .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime(), first.getLastCommit());
+        Assert.assertNotNull(first.getLastSuccess());
+
+        Assert.assertNull(gitHubModels.get(2).getLastCommit());
+        Assert.assertNotNull(gitHubModels.get(2).getLastSuccess());
+        Assert.assertNull(gitHubModels.get(1).getLastSuccess());
+    }
+
+    @Test
+    public void fetch_whenMoreRepositoriesThanBatchSize_shouldSplitIntoQueries() {
+        //Arrange
+        fetcher.setBatchSize(2);
+
+        //Act
+        List<GitHubModel> failed = fetcher.fetch("token", models(5)).getFailed();
+
+        //Assert
+        Assert.assertEquals(Arrays.asList(2, 2, 1), batchSizes);
+        Assert.assertTrue(failed.isEmpty());
+    }
+
+    @Test
+    public void fetch_whenCostExceedsLimit_shouldShrinkFollowingQueries() {
+        //Arrange
+        fetcher.setBatchSize(4);
+        fetcher.setMaxCost(1);
+        repositoriesPerPoint = 2;
+
+        //Act
+        fetcher.fetch("token", models(8));
+
+        //Assert
+        Assert.assertEquals(Arrays.asList(4, 2, 2), batchSizes);
+    }
+
+    @Test
+    public void fetch_whenQueryFails_shouldBisectUntilItSucceeds() {
+        //Arrange
+        maxReposPerQuery = 1;
+        List<GitHubModel> gitHubModels = models(3);
+
+        //Act
+        List<GitHubModel> failed = fetcher.fetch("token", gitHubModels).getFailed();
+
+        //Assert
+        Assert.assertEquals(Arrays.asList(3, 1, 2, 1, 1), batchSizes);
+        Assert.assertTrue(failed.isEmpty());
+        gitHubModels.forEach(gitHubModel -> Assert.assertEquals(7, gitHubModel.getPullRequests()));
+    }
+
+    @Test
+    public void fetch_whenEndpointUnreachable_shouldReturnAllWithoutRetrying() {
+        //Arrange
+        server.stop(0);
+        List<GitHubModel> gitHubModels = models(4);
+        fetcher.setBatchSize(2);
+
+        //Act
+        List<GitHubModel> failed = fetcher.fetch("token", gitHubModels).getFailed();
+
+        //Assert
+        Assert.assertEquals(gitHubModels, failed);
+    }
+
+    @Test
+    public void fetch_whenTokenRejected_shouldStopAndReturnTheRest() {
+        //Arrange
+        rejectWith = 401;
+        List<GitHubModel> gitHubModels = models(4);
+        fetcher.setBatchSize(2);
+
+        //Act
+        GitHubGraphQlFetcher.Result result = fetcher.fetch("token", gitHubModels);
+
+        //Assert
+        Assert.assertEquals(Arrays.asList(2), batchSizes);
+        Assert.assertEquals(GitHubGraphQlFetcher.Outcome.UNAUTHORIZED, result.getOutcome());
+        Assert.assertEquals(gitHubModels, result.getFailed());
+    }
+
+    @Test
+    public void fetch_whenAccessForbidden_shouldStopAndReturnTheRest() {
+        //Arrange
+        rejectWith = 403;
+        fetcher.setBatchSize(2);
+
+        //Act
+        GitHubGraphQlFetcher.Result result = fetcher.fetch("token", models(4));
+
+        //Assert
+        Assert.assertEquals(Arrays.asList(2), batchSizes);
+        Assert.assertEquals(GitHubGraphQlFetcher.Outcome.FORBIDDEN, result.getOutcome());
+        Assert.assertEquals(4, result.getFailed().size());
+    }
+
+    @Test
+    public void fetch_whenCompleted_shouldReportSpentCostWithinEstimate() {
+        //Arrange
+        fetcher.setBatchSize(2);
+        List<GitHubModel> gitHubModels = models(5);
+
+        //Act
+        GitHubGraphQlFetcher.Result result = fetcher.fetch("token", gitHubModels);
+
+        //Assert
+        Assert.assertEquals(GitHubGraphQlFetcher.Outcome.COMPLETED, result.getOutcome());
+        Assert.assertEquals(3, result.getCost());
+        Assert.assertEquals(6, fetcher.estimateCost(gitHubModels.size()));
+    }
+
+    private List<GitHubModel> models(int count) {
+        List<GitHubModel> gitHubModels = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            gitHubModels.add(new GitHubModel("https://github.com/user/repo" + i, "user", "repo" + i));
+        }
+        return gitHubModels;
+    }
+
+    private String generate(int repositories) {
+        int cost = 1 + (repositories - 1) / repositoriesPerPoint;
+        StringBuilder data = new StringBuilder("{\"data\":{\"rateLimit\":{\"cost\":" + cost + ",\"remaining\":4000}");
+        for (int i = 0; i < repositories; i++) {
+            data.append(",\"r").append(i).append("\":{\"stargazers\":{\"totalCount\":1},\"forkCount\":1,")
+                    .append("\"pullRequests\":{\"totalCount\":7},\"issues\":{\"totalCount\":2},")
+                    .append("\"defaultBranchRef\":{\"target\":{\"committedDate\":\"2018-01-01T00:00:00Z\"}}}");
+        }
+        return data.append("}}").toString();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
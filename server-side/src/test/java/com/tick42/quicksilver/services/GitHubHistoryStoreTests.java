@@ -0,0 +1,287 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.GitHubHistory;
+import com.tick42.quicksilver.models.GitHubModel;
+import com.tick42.quicksilver.repositories.base.GitHubHistoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitHubHistoryStoreTests {
+    private static final long start = 1500000000000L;
+
+    @Mock
+    GitHubHistoryRepository gitHubHistoryRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    private final List<GitHubHistory> segments = new ArrayList<>();
+    private long now = start;
+    private GitHubHistoryStore historyStore;
+
+    @Before
+    public void setUp() {
+        historyStore = new GitHubHistoryStore(gitHubHistoryRepository, new SimpleMeterRegistry(), transactionManager, () -> now);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubSegments() {
+        when(gitHubHistoryRepository.findByGitHubIdInAndResolutionAndStartIn(anyCollection(), any(), anyCollection()))
+                .thenAnswer(invocation -> segments.stream()
+                        .filter(segment -> ((Collection<Long>) invocation.getArgument(0)).contains(segment.getGitHubId()) &&
+                                segment.getResolution() == invocation.getArgument(1) &&
+                                ((Collection<Long>) invocation.getArgument(2)).contains(segment.getStart()))
+                        .collect(Collectors.toList()));
+        when(gitHubHistoryRepository.findByGitHubIdAndResolutionAndStartGreaterThanEqualOrderByStart(anyLong(), any(), anyLong()))
+                .thenAnswer(invocation -> segments.stream()
+                        .filter(segment -> segment.getGitHubId() == (long) invocation.getArgument(0) &&
+                                segment.getResolution() == invocation.getArgument(1) &&
+                                segment.getStart() >= (long) invocation.getArgument(2))
+                        .collect(Collectors.toList()));
+        when(gitHubHistoryRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            ((Iterable<GitHubHistory>) invocation.getArgument(0)).forEach(segment -> {
+                if (!segments.contains(segment)) {
+                    segments.add(segment);
+                }
+            });
+            return null;
+        });
+    }
+
+    @Test
+    public void append_whenSamplesDecoded_shouldRoundTripDeltas() {
+        //Arrange
+        GitHubHistory segment = new GitHubHistory(1, GitHubHistory.Resolution.RAW, 1000);
+
+        //Act
+        segment.append(new GitHubHistory.Sample(1010, 40, 120, 900));
+        segment.append(new GitHubHistory.Sample(1020, 38, 125, 1015));
+        boolean outOfOrder = segment.append(new GitHubHistory.Sample(1015, 1, 1, 1));
+        List<GitHubHistory.Sample> samples = segment.getSamples();
+
+        //Assert
+        Assert.assertFalse(outOfOrder);
+        Assert.assertEquals(2, samples.size());
+        Assert.assertEquals(1020, samples.get(1).getTime());
+        Assert.assertEquals(38, samples.get(1).getPullRequests());
+        Assert.assertEquals(125, samples.get(1).getOpenIssues());
+        Assert.assertEquals(1015, samples.get(1).getLastCommit());
+        Assert.assertTrue(segment.getData().length <= 16);
+    }
+
+    @Test
+    public void flush_whenSamplesShareBucket_shouldKeepLatestInRollups() {
+        //Arrange
+        stubSegments();
+        historyStore.record(gitHubModel(1, start, 10));
+        historyStore.record(gitHubModel(1, start + TimeUnit.MINUTES.toMillis(10), 12));
+        historyStore.record(gitHubModel(1, start + TimeUnit.HOURS.toMillis(2), 15));
+
+        //Act
+        historyStore.flush();
+
+        //Assert
+        Assert.assertEquals(3, samples(GitHubHistory.Resolution.RAW).size());
+        Assert.assertEquals(2, samples(GitHubHistory.Resolution.HOURLY).size());
+        Assert.assertEquals(12, samples(GitHubHistory.Resolution.HOURLY).get(0).getOpenIssues());
+        Assert.assertEquals(1, samples(GitHubHistory.Resolution.DAILY).size());
+        Assert.assertEquals(15, samples(GitHubHistory.Resolution.DAILY).get(0).getOpenIssues());
+        Assert.assertEquals(0, historyStore.getSize());
+    }
+
+    @Test
+    public void flush_whenSegmentInsertedConcurrently_shouldReportConflictAndKeepSamples() {
+        //Arrange
+        when(gitHubHistoryRepository.saveAll(anyIterable())).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+        historyStore.record(gitHubModel(1, start, 10));
+
+        //Act
+        try {
+            historyStore.flush();
+            Assert.fail();
+        } catch (OptimisticLockingFailureException e) {
+            //Assert
+            Assert.assertEquals(1, historyStore.getSize());
+        }
+    }
+
+    @Test
+    public void flush_whenTransactionRollsBackAtCommit_shouldKeepSamples() {
+        //Arrange
+        stubSegments();
+        historyStore.record(gitHubModel(1, start, 10));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            historyStore.flush();
+            Assert.assertEquals(0, historyStore.getSize());
+
+            //Act
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        //Assert
+        Assert.assertEquals(1, historyStore.getSize());
+    }
+
+    @Test
+    public void close_shouldFlushInsideTransaction() {
+        //Arrange
+        stubSegments();
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        historyStore.record(gitHubModel(1, start, 10));
+
+        //Act
+        historyStore.close();
+
+        //Assert
+        verify(transactionManager).commit(any());
+        Assert.assertEquals(1, samples(GitHubHistory.Resolution.RAW).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void close_whenFlushConflicts_shouldRetryUntilItCommits() {
+        //Arrange
+        stubSegments();
+        when(gitHubHistoryRepository.saveAll(anyIterable()))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry"))
+                .thenAnswer(invocation -> {
+                    ((Iterable<GitHubHistory>) invocation.getArgument(0)).forEach(segments::add);
+                    return null;
+                });
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        historyStore.record(gitHubModel(1, start, 10));
+
+        //Act
+        historyStore.close();
+
+        //Assert
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        Assert.assertEquals(1, samples(GitHubHistory.Resolution.RAW).size());
+        Assert.assertEquals(0, historyStore.getSize());
+    }
+
+    @Test
+    public void record_whenRefreshFailed_shouldSkipSample() {
+        //Arrange
+        GitHubModel gitHubModel = gitHubModel(1, start, 10);
+        gitHubModel.setLastFail(gitHubModel.getLastSuccess().plusMinutes(1));
+
+        //Act
+        historyStore.record(gitHubModel);
+
+        //Assert
+        Assert.assertEquals(0, historyStore.getSize());
+    }
+
+    @Test
+    public void record_whenWebhookNewerThanPoll_shouldStampSampleWithWebhookTime() {
+        //Arrange
+        stubSegments();
+        GitHubModel gitHubModel = gitHubModel(1, start, 10);
+        gitHubModel.setLastWebhook(gitHubModel.getLastSuccess().plusMinutes(10));
+
+        //Act
+        historyStore.record(gitHubModel);
+        historyStore.flush();
+
+        //Assert
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toMinutes(start) + 10, samples(GitHubHistory.Resolution.RAW).get(0).getTime());
+    }
+
+    @Test
+    public void record_whenCapacityReached_shouldDropSample() {
+        //Arrange
+        historyStore.setCapacity(1);
+        historyStore.record(gitHubModel(1, start, 10));
+
+        //Act
+        historyStore.record(gitHubModel(2, start, 10));
+
+        //Assert
+        Assert.assertEquals(1, historyStore.getSize());
+    }
+
+    @Test
+    public void getSparkline_shouldReadRollupsOnly() {
+        //Arrange
+        stubSegments();
+        for (int day = 0; day < 20; day++) {
+            historyStore.record(gitHubModel(1, start + TimeUnit.DAYS.toMillis(day), day));
+        }
+        historyStore.flush();
+        now = start + TimeUnit.DAYS.toMillis(19);
+
+        //Act
+        List<GitHubHistory.Sample> week = historyStore.getSparkline(1, 7);
+        List<GitHubHistory.Sample> month = historyStore.getSparkline(1, 30);
+
+        //Assert
+        Assert.assertEquals(8, week.size());
+        Assert.assertEquals(19, week.get(7).getOpenIssues());
+        Assert.assertEquals(20, month.size());
+        verify(gitHubHistoryRepository, never()).findByGitHubIdAndResolutionAndStartGreaterThanEqualOrderByStart(
+                anyLong(), eq(GitHubHistory.Resolution.RAW), anyLong());
+    }
+
+    @Test
+    public void retain_shouldDeleteSegmentsPastRetention() {
+        //Arrange
+        now = start + TimeUnit.DAYS.toMillis(30);
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(now);
+
+        //Act
+        historyStore.retain();
+
+        //Assert
+        verify(gitHubHistoryRepository).deleteExpired(GitHubHistory.Resolution.RAW,
+                GitHubHistory.Resolution.RAW.segment(minutes - TimeUnit.DAYS.toMinutes(2)));
+        verify(gitHubHistoryRepository).deleteExpired(GitHubHistory.Resolution.HOURLY,
+                GitHubHistory.Resolution.HOURLY.segment(minutes - TimeUnit.DAYS.toMinutes(30)));
+        verify(gitHubHistoryRepository).deleteExpired(GitHubHistory.Resolution.DAILY,
+                GitHubHistory.Resolution.DAILY.segment(minutes - TimeUnit.DAYS.toMinutes(730)));
+    }
+
+    private List<GitHubHistory.Sample> samples(GitHubHistory.Resolution resolution) {
+        return segments.stream()
+                .filter(segment -> segment.getResolution() == resolution)
+                .flatMap(segment -> segment.getSamples().stream())
+                .collect(Collectors.toList());
+    }
+
+    private static GitHubModel gitHubModel(long id, long millis, int openIssues) {
+        GitHubModel gitHubModel = new GitHubModel("https://github.com/owner/repo", "owner", "repo");
+        gitHubModel.setId(id);
+        gitHubModel.setOpenIssues(openIssues);
+        gitHubModel.setLastSuccess(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+        return gitHubModel;
+    }
+}
@@ -0,0 +1,153 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.Lease;
+import com.tick42.quicksilver.repositories.base.LeaseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitHubLeaderElectionTests {
+
+    @Mock
+    LeaseRepository leaseRepository;
+
+    private final List<Boolean> changes = new ArrayList<>();
+    private long now = 1000000;
+    private GitHubLeaderElection leaderElection;
+
+    @Before
+    public void setUp() {
+        leaderElection = new GitHubLeaderElection(leaseRepository, new SimpleMeterRegistry(), () -> now);
+        leaderElection.setNode("node-a");
+        leaderElection.addListener(changes::add);
+    }
+
+    @Test
+    public void heartbeat_whenLeaseAcquired_shouldLeadAndNotifyOnce() {
+        //Arrange
+        when(leaseRepository.acquire("github-refresh", "node-a", 30000)).thenReturn(1);
+        when(leaseRepository.findById("github-refresh")).thenReturn(Optional.of(lease("node-a", 0)));
+
+        //Act
+        leaderElection.heartbeat();
+        leaderElection.heartbeat();
+
+        //Assert
+        Assert.assertTrue(leaderElection.isLeader());
+        Assert.assertEquals(Arrays.asList(true), changes);
+    }
+
+    @Test
+    public void heartbeat_whenLeaseHeldByOtherNode_shouldFollow() {
+        //Arrange
+        when(leaseRepository.acquire(anyString(), anyString(), anyLong())).thenReturn(0);
+        when(leaseRepository.existsById("github-refresh")).thenReturn(true);
+        when(leaseRepository.findById("github-refresh")).thenReturn(Optional.of(lease("node-b", 0)));
+
+        //Act
+        leaderElection.heartbeat();
+
+        //Assert
+        Assert.assertFalse(leaderElection.isLeader());
+        verify(leaseRepository, never()).create(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    public void heartbeat_whenLeaseMissing_shouldCreateIt() {
+        //Arrange
+        when(leaseRepository.acquire(anyString(), anyString(), anyLong())).thenReturn(0);
+        when(leaseRepository.existsById("github-refresh")).thenReturn(false);
+        when(leaseRepository.create("github-refresh", "node-a", 30000)).thenReturn(1);
+        when(leaseRepository.findById("github-refresh")).thenReturn(Optional.of(lease("node-a", 0)));
+
+        //Act
+        leaderElection.heartbeat();
+
+        //Assert
+        Assert.assertTrue(leaderElection.isLeader());
+    }
+
+    @Test
+    public void heartbeat_whenCreateRacesOtherNode_shouldFollow() {
+        //Arrange
+        when(leaseRepository.acquire(anyString(), anyString(), anyLong())).thenReturn(0);
+        when(leaseRepository.existsById("github-refresh")).thenReturn(false);
+        when(leaseRepository.create(anyString(), anyString(), anyLong())).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+        when(leaseRepository.findById("github-refresh")).thenReturn(Optional.of(lease("node-b", 0)));
+
+        //Act
+        leaderElection.heartbeat();
+
+        //Assert
+        Assert.assertFalse(leaderElection.isLeader());
+    }
+
+    @Test
+    public void isLeader_whenHeartbeatsStop_shouldStepDownBeforeLeaseExpires() {
+        //Arrange
+        when(leaseRepository.acquire(anyString(), anyString(), anyLong())).thenReturn(1);
+        when(leaseRepository.findById("github-refresh")).thenReturn(Optional.of(lease("node-a", 0)));
+        leaderElection.heartbeat();
+
+        //Act
+        now += 20000;
+
+        //Assert
+        Assert.assertFalse(leaderElection.isLeader());
+    }
+
+    @Test
+    public void heartbeat_whenDatabaseFails_shouldStepDown() {
+        //Arrange
+        when(leaseRepository.acquire(anyString(), anyString(), anyLong()))
+                .thenReturn(1)
+                .thenThrow(new QueryTimeoutException("Lock wait timeout exceeded"));
+        when(leaseRepository.findById("github-refresh")).thenReturn(Optional.of(lease("node-a", 0)));
+        leaderElection.heartbeat();
+
+        //Act
+        leaderElection.heartbeat();
+
+        //Assert
+        Assert.assertFalse(leaderElection.isLeader());
+        Assert.assertEquals(Arrays.asList(true, false), changes);
+    }
+
+    @Test
+    public void heartbeat_whenSettingsRevised_shouldNotifyLeader() {
+        //Arrange
+        when(leaseRepository.acquire(anyString(), anyString(), anyLong())).thenReturn(1);
+        when(leaseRepository.findById("github-refresh"))
+                .thenReturn(Optional.of(lease("node-a", 0)))
+                .thenReturn(Optional.of(lease("node-a", 1)));
+        leaderElection.heartbeat();
+
+        //Act
+        leaderElection.heartbeat();
+
+        //Assert
+        Assert.assertEquals(Arrays.asList(true, true), changes);
+    }
+
+    private static Lease lease(String owner, long revision) {
+        Lease lease = new Lease();
+        lease.setName("github-refresh");
+        lease.setOwner(owner);
+        lease.setRevision(revision);
+        return lease;
+    }
+}
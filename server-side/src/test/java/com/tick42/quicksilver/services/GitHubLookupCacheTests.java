@@ -0,0 +1,111 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.GitHubModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GitHubLookupCacheTests {
+    private long now;
+    private GitHubLookupCache lookupCache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        lookupCache = new GitHubLookupCache(new SimpleMeterRegistry(), () -> now);
+        lookupCache.setTtl(1000);
+        lookupCache.setNegativeTtl(100);
+    }
+
+    @Test
+    public void get_whenWithinTtl_shouldReuseResult() {
+        //Arrange
+        lookupCache.get("user/repo", () -> load(null));
+
+        //Act
+        now = 999;
+        GitHubModel cached = lookupCache.get("user/repo", () -> load(null));
+        now = 1000;
+        lookupCache.get("user/repo", () -> load(null));
+
+        //Assert
+        Assert.assertEquals(7, cached.getPullRequests());
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void get_whenLookupFailed_shouldCacheBriefly() {
+        //Arrange
+        lookupCache.get("user/repo", () -> load("Couldn't connect."));
+
+        //Act
+        now = 99;
+        GitHubModel cached = lookupCache.get("user/repo", () -> load(null));
+        now = 100;
+        GitHubModel reloaded = lookupCache.get("user/repo", () -> load(null));
+
+        //Assert
+        Assert.assertEquals("Couldn't connect.", cached.getFailMessage());
+        Assert.assertNull(reloaded.getFailMessage());
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void get_shouldReturnCopiesOfCachedResult() {
+        //Arrange
+        lookupCache.get("user/repo", () -> load(null)).setPullRequests(100);
+
+        //Act
+        GitHubModel cached = lookupCache.get("user/repo", () -> load(null));
+
+        //Assert
+        Assert.assertEquals(7, cached.getPullRequests());
+    }
+
+    @Test
+    public void get_whenConcurrentLookups_shouldShareOneLoad() throws Exception {
+        //Arrange
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        //Act
+        Future<GitHubModel> first = executor.submit(() -> lookupCache.get("user/repo", () -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return load(null);
+        }));
+        loading.await();
+        Thread second = new Thread(() -> lookupCache.get("user/repo", () -> load(null)));
+        second.start();
+        while (second.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        second.join(5000);
+
+        //Assert
+        Assert.assertEquals(7, first.get(5, TimeUnit.SECONDS).getPullRequests());
+        Assert.assertEquals(1, loads.get());
+        executor.shutdownNow();
+    }
+
+    private GitHubModel load(String failMessage) {
+        loads.incrementAndGet();
+        GitHubModel gitHubModel = new GitHubModel("https://github.com/user/repo", "user", "repo");
+        gitHubModel.setPullRequests(7);
+        gitHubModel.setFailMessage(failMessage);
+        return gitHubModel;
+    }
+}
@@ -1,16 +1,24 @@
 package com.tick42.quicksilver.services;
 
 import com.tick42.quicksilver.models.GitHubModel;
+import com.tick42.quicksilver.repositories.base.GitHubHistoryRepository;
 import com.tick42.quicksilver.repositories.base.GitHubRepository;
+import com.tick42.quicksilver.repositories.base.LeaseRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.mockito.Mockito.*;
 
@@ -20,9 +28,35 @@ public class GitHubModelServiceImplTests {
     @Mock
     GitHubRepository gitHubRepository;
 
-    @InjectMocks
+    @Mock
+    GitHubHistoryRepository gitHubHistoryRepository;
+
+    @Mock
+    LeaseRepository leaseRepository;
+
+    private ExecutorService executor;
+    private ThreadPoolTaskScheduler taskScheduler;
     private GitHubServiceImpl gitHubService;
 
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.initialize();
+        gitHubService = new GitHubServiceImpl(gitHubRepository, null, taskScheduler, null,
+                executor, new GitHubCircuitBreaker(new SimpleMeterRegistry()),
+                new GitHubTokenPool(null, null, new SimpleMeterRegistry()), new GitHubStatsFetcher(), new GitHubGraphQlFetcher(),
+                new GitHubRefreshScheduler(new SimpleMeterRegistry()), new GitHubLookupCache(new SimpleMeterRegistry()),
+                new GitHubHistoryStore(gitHubHistoryRepository, new SimpleMeterRegistry(), null),
+                new GitHubLeaderElection(leaseRepository, new SimpleMeterRegistry()));
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        taskScheduler.shutdown();
+    }
+
     @Test
     public void setRemoteDetails_whenGitHubModelIsValid_shouldNotThrow() {
         //Arrange
@@ -71,6 +105,59 @@ public class GitHubModelServiceImplTests {
         gitHubService.updateExtensionDetails();
 
         //Assert
-        verify(gitHubRepository, times(2)).save(isA(GitHubModel.class));
+        verify(gitHubRepository, times(1)).saveAll(argThat(batch -> ((List<GitHubModel>) batch).size() == 2));
+    }
+
+    @Test
+    public void updateExtensionDetails_whenMoreThanBatchSize_shouldSaveInBatches() {
+        //Arrange
+        List<GitHubModel> gitHubModels = Arrays.asList(new GitHubModel(), new GitHubModel(), new GitHubModel());
+        gitHubModels.forEach(gitHubModel -> {
+            gitHubModel.setUser("wrong");
+            gitHubModel.setRepo("wrong");
+        });
+        gitHubService.setRefreshBatchSize(2);
+
+        when(gitHubRepository.findAll()).thenReturn(gitHubModels);
+
+        //Act
+        gitHubService.updateExtensionDetails();
+
+        //Assert
+        verify(gitHubRepository, times(2)).saveAll(anyList());
+        verify(gitHubRepository, never()).save(isA(GitHubModel.class));
+        gitHubModels.forEach(gitHubModel -> Assert.assertNotNull(gitHubModel.getLastFail()));
+    }
+
+    @Test
+    public void generatePendingGitHub_shouldNotContactGitHub() {
+        //Arrange
+        String link = "https://github.com/Smytt/Tick42-ExtensionRepository";
+
+        //Act
+        GitHubModel gitHubModel = gitHubService.generatePendingGitHub(link);
+
+        //Assert
+        Assert.assertEquals("Smytt", gitHubModel.getUser());
+        Assert.assertEquals("Tick42-ExtensionRepository", gitHubModel.getRepo());
+        Assert.assertNull(gitHubModel.getLastSuccess());
+        Assert.assertNull(gitHubModel.getLastFail());
+    }
+
+    @Test
+    public void enrichAfterCommit_shouldRefreshAndSaveInBackground() {
+        //Arrange
+        GitHubModel gitHubModel = new GitHubModel("https://github.com/wrong/wrong", "wrong", "wrong");
+        gitHubModel.setId(5);
+        when(gitHubRepository.findById(5L)).thenReturn(Optional.of(gitHubModel));
+
+        //Act
+        gitHubService.enrichAfterCommit(gitHubModel);
+
+        //Assert
+        verify(gitHubRepository, timeout(5000)).save(gitHubModel);
+        Assert.assertNotNull(gitHubModel.getLastFail());
+        Assert.assertEquals("No GitHub token is configured.", gitHubModel.getFailMessage());
+        Assert.assertEquals(0, gitHubModel.getFailCount());
     }
 }
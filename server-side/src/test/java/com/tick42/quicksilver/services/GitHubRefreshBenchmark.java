@@ -0,0 +1,191 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.config.GitHubConfig;
+import com.tick42.quicksilver.models.GitHubModel;
+import com.tick42.quicksilver.models.Settings;
+import com.tick42.quicksilver.repositories.base.GitHubHistoryRepository;
+import com.tick42.quicksilver.repositories.base.GitHubRepository;
+import com.tick42.quicksilver.repositories.base.LeaseRepository;
+import com.tick42.quicksilver.repositories.base.SettingsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures refresh cycles of {@link GitHubServiceImpl#updateExtensionDetails()} against
+ * {@link FakeGitHubServer}. Not part of the regular test run; use {@code gradle benchmark}.
+ */
+public class GitHubRefreshBenchmark {
+    private static final int repositories = 500;
+    private static final int warmups = 2;
+    private static final int iterations = 5;
+
+    private static final List<String> results = new ArrayList<>();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FakeGitHubServer server;
+    private GitHubConnector connector;
+    private ExecutorService executor;
+
+    @BeforeClass
+    public static void header() {
+        results.add(String.format("%-34s %10s %10s %10s %12s", "scenario", "p50 ms", "max ms", "calls/repo", "bytes/repo"));
+    }
+
+    @AfterClass
+    public static void report() {
+        results.forEach(System.out::println);
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeGitHubServer();
+        server.setRateLimit(Integer.MAX_VALUE);
+
+        connector = new GitHubConnector(new SimpleMeterRegistry());
+        connector.setDirectory(folder.newFolder().getPath());
+        connector.init();
+
+        executor = new GitHubConfig().gitHubExecutor(new SimpleMeterRegistry());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        connector.close();
+        server.close();
+    }
+
+    @Test
+    public void rest_noLatency() throws IOException {
+        run("rest, 0ms", false);
+    }
+
+    @Test
+    public void rest_latency() throws IOException {
+        server.setLatency(20);
+        run("rest, 20ms", false);
+    }
+
+    @Test
+    public void rest_latencyAndErrors() throws IOException {
+        server.setLatency(20);
+        server.setErrorRate(0.05);
+        run("rest, 20ms, 5% errors", false);
+    }
+
+    @Test
+    public void graphQl_noLatency() throws IOException {
+        run("graphql, 0ms", true);
+    }
+
+    @Test
+    public void graphQl_latency() throws IOException {
+        server.setLatency(20);
+        run("graphql, 20ms", true);
+    }
+
+    @Test
+    public void graphQl_latencyAndErrors() throws IOException {
+        server.setLatency(20);
+        server.setErrorRate(0.05);
+        run("graphql, 20ms, 5% errors", true);
+    }
+
+    private void run(String scenario, boolean graphQl) throws IOException {
+        long[] times = new long[iterations];
+        long calls = 0;
+        long bytes = 0;
+
+        for (int i = -warmups; i < iterations; i++) {
+            long usedBefore = usedHeap();
+            List<GitHubModel> gitHubModels = models();
+            GitHubServiceImpl gitHubService = service(gitHubModels, graphQl);
+            server.resetRequests();
+
+            long start = System.nanoTime();
+            gitHubService.updateExtensionDetails();
+            long elapsed = System.nanoTime() - start;
+            long usedAfter = usedHeap();
+            gitHubModels.clear();
+
+            if (i >= 0) {
+                times[i] = elapsed;
+                calls += server.getRequests();
+                bytes += Math.max(0, usedAfter - usedBefore);
+            }
+        }
+
+        Arrays.sort(times);
+        results.add(String.format("%-34s %10.1f %10.1f %10.2f %12d", scenario,
+                times[iterations / 2] / 1e6, times[iterations - 1] / 1e6,
+                (double) calls / iterations / repositories, bytes / iterations / repositories));
+    }
+
+    private GitHubServiceImpl service(List<GitHubModel> gitHubModels, boolean graphQl) {
+        GitHubRepository gitHubRepository = mock(GitHubRepository.class);
+        when(gitHubRepository.findAll()).thenReturn(gitHubModels);
+        when(gitHubRepository.findDownloadCounts()).thenReturn(Collections.emptyList());
+
+        Settings settings = new Settings();
+        settings.setId(1);
+        settings.setUsername("admin");
+        settings.setToken("token");
+        SettingsRepository settingsRepository = mock(SettingsRepository.class);
+        when(settingsRepository.findAll()).thenReturn(Collections.singletonList(settings));
+
+        GitHubTokenPool tokenPool = new GitHubTokenPool(settingsRepository, connector, new SimpleMeterRegistry());
+        tokenPool.setEndpoint(server.getEndpoint());
+        tokenPool.reload();
+
+        GitHubGraphQlFetcher graphQlFetcher = new GitHubGraphQlFetcher();
+        graphQlFetcher.setEnabled(graphQl);
+        graphQlFetcher.setEndpoint(server.getGraphQlEndpoint());
+        graphQlFetcher.init();
+
+        GitHubCircuitBreaker circuitBreaker = new GitHubCircuitBreaker(new SimpleMeterRegistry());
+        circuitBreaker.setFailureThreshold(Integer.MAX_VALUE);
+
+        GitHubRefreshScheduler refreshScheduler = new GitHubRefreshScheduler(new SimpleMeterRegistry());
+        refreshScheduler.setHourlyBudget(Integer.MAX_VALUE);
+
+        return new GitHubServiceImpl(gitHubRepository, null, null, settingsRepository, executor, circuitBreaker,
+                tokenPool, new GitHubStatsFetcher(), graphQlFetcher, refreshScheduler, new GitHubLookupCache(new SimpleMeterRegistry()),
+                new GitHubHistoryStore(mock(GitHubHistoryRepository.class), new SimpleMeterRegistry(), null),
+                new GitHubLeaderElection(mock(LeaseRepository.class), new SimpleMeterRegistry()));
+    }
+
+    private static List<GitHubModel> models() {
+        List<GitHubModel> gitHubModels = new ArrayList<>(repositories);
+        for (int i = 0; i < repositories; i++) {
+            GitHubModel gitHubModel = new GitHubModel("https://github.com/owner" + i % 50 + "/repo" + i, "owner" + i % 50, "repo" + i);
+            gitHubModel.setId(i + 1);
+            gitHubModels.add(gitHubModel);
+        }
+        return gitHubModels;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
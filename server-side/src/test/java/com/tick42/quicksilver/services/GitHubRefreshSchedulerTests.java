@@ -0,0 +1,151 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.GitHubModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class GitHubRefreshSchedulerTests {
+    private static final long minute = 60 * 1000;
+
+    private long now = 1000 * 60 * minute;
+    private GitHubRefreshScheduler refreshScheduler;
+
+    @Before
+    public void setUp() {
+        refreshScheduler = new GitHubRefreshScheduler(new SimpleMeterRegistry(), () -> now);
+        refreshScheduler.setMinInterval(10 * minute);
+        refreshScheduler.setBackoff(5 * minute);
+        refreshScheduler.setMaxBackoff(20 * minute);
+    }
+
+    @Test
+    public void select_shouldOrderByStalenessPopularityAndActivity() {
+        //Arrange
+        GitHubModel neverRefreshed = model(1, null);
+        GitHubModel stale = model(2, at(-180 * minute));
+        GitHubModel popular = model(3, at(-60 * minute));
+        GitHubModel active = model(4, at(-60 * minute));
+        GitHubModel idle = model(5, at(-60 * minute));
+        active.setLastCommit(at(-60 * minute));
+        Map<Long, Integer> downloads = new HashMap<>();
+        downloads.put(3L, 1000);
+
+        //Act
+        List<GitHubModel> selected = refreshScheduler.select(
+                Arrays.asList(idle, active, popular, stale, neverRefreshed), downloads, 3);
+
+        //Assert
+        Assert.assertEquals(Arrays.asList(neverRefreshed, popular, stale, active, idle), selected);
+    }
+
+    @Test
+    public void select_shouldSkipRecentlyRefreshedAndBackingOffRepositories() {
+        //Arrange
+        GitHubModel fresh = model(1, at(-5 * minute));
+        GitHubModel backingOff = model(2, null);
+        backingOff.setNextRefresh(at(minute));
+        GitHubModel due = model(3, null);
+        due.setNextRefresh(at(0));
+
+        //Act
+        List<GitHubModel> selected = refreshScheduler.select(Arrays.asList(fresh, backingOff, due), Collections.emptyMap(), 3);
+
+        //Assert
+        Assert.assertEquals(Collections.singletonList(due), selected);
+    }
+
+    @Test
+    public void select_shouldStayWithinHourlyBudget() {
+        //Arrange
+        refreshScheduler.setHourlyBudget(6);
+        List<GitHubModel> gitHubModels = Arrays.asList(model(1, null), model(2, null), model(3, null));
+
+        //Act
+        List<GitHubModel> first = refreshScheduler.select(gitHubModels, Collections.emptyMap(), 3);
+        List<GitHubModel> second = refreshScheduler.select(gitHubModels, Collections.emptyMap(), 3);
+        now += 30 * minute;
+        List<GitHubModel> third = refreshScheduler.select(gitHubModels, Collections.emptyMap(), 3);
+
+        //Assert
+        Assert.assertEquals(2, first.size());
+        Assert.assertEquals(0, second.size());
+        Assert.assertEquals(1, third.size());
+    }
+
+    @Test
+    public void completed_whenRefreshKeepsFailing_shouldBackOffExponentially() {
+        //Arrange
+        GitHubModel gitHubModel = model(1, at(-60 * minute));
+        gitHubModel.setRepositoryFailure(true);
+
+        //Act
+        gitHubModel.setLastFail(at(0));
+        refreshScheduler.completed(gitHubModel);
+        LocalDateTime first = gitHubModel.getNextRefresh();
+        refreshScheduler.completed(gitHubModel);
+        LocalDateTime second = gitHubModel.getNextRefresh();
+        refreshScheduler.completed(gitHubModel);
+        refreshScheduler.completed(gitHubModel);
+        LocalDateTime capped = gitHubModel.getNextRefresh();
+
+        //Assert
+        Assert.assertEquals(at(5 * minute), first);
+        Assert.assertEquals(at(10 * minute), second);
+        Assert.assertEquals(at(20 * minute), capped);
+        Assert.assertEquals(4, gitHubModel.getFailCount());
+    }
+
+    @Test
+    public void completed_whenRefreshTurnedAwayBeforeReachingRepository_shouldNotBackOff() {
+        //Arrange
+        GitHubModel gitHubModel = model(1, at(-60 * minute));
+        gitHubModel.setFailCount(2);
+        gitHubModel.setLastFail(at(0));
+        gitHubModel.setFailMessage("GitHub is currently unavailable.");
+
+        //Act
+        refreshScheduler.completed(gitHubModel);
+
+        //Assert
+        Assert.assertEquals(2, gitHubModel.getFailCount());
+        Assert.assertNull(gitHubModel.getNextRefresh());
+    }
+
+    @Test
+    public void completed_whenRefreshSucceeds_shouldResetBackoff() {
+        //Arrange
+        GitHubModel gitHubModel = model(1, at(-60 * minute));
+        gitHubModel.setFailCount(3);
+        gitHubModel.setNextRefresh(at(20 * minute));
+        gitHubModel.setLastFail(at(-30 * minute));
+        gitHubModel.setLastSuccess(at(0));
+
+        //Act
+        refreshScheduler.completed(gitHubModel);
+
+        //Assert
+        Assert.assertEquals(0, gitHubModel.getFailCount());
+        Assert.assertNull(gitHubModel.getNextRefresh());
+    }
+
+    private GitHubModel model(long id, LocalDateTime lastSuccess) {
+        GitHubModel gitHubModel = new GitHubModel("https://github.com/user/repo" + id, "user", "repo" + id);
+        gitHubModel.setId(id);
+        gitHubModel.setLastSuccess(lastSuccess);
+        return gitHubModel;
+    }
+
+    private LocalDateTime at(long offset) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(now + offset), ZoneId.systemDefault());
+    }
+}
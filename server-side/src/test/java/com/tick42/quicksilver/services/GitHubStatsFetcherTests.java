@@ -0,0 +1,138 @@
+package com.tick42.quicksilver.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tick42.quicksilver.models.GitHubModel;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.HttpException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class GitHubStatsFetcherTests {
+    private HttpServer server;
+    private GitHub gitHub;
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final GitHubStatsFetcher statsFetcher = new GitHubStatsFetcher();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.add(exchange.getRequestURI().toString());
+
+            if (path.equals("/repos/user/repo")) {
+                respond(exchange, 200, "{\"name\":\"repo\",\"full_name\":\"user/repo\",\"owner\":{\"login\":\"user\"},\"open_issues_count\":7}");
+            } else if (path.equals("/repos/user/repo/pulls")) {
+                exchange.getResponseHeaders().add("Link", "<http://127.0.0.1/repositories/1/pulls?state=open&per_page=1&page=2>; rel=\"next\", "
+                        + "<http://127.0.0.1/repositories/1/pulls?state=open&per_page=1&page=3>; rel=\"last\"");
+                respond(exchange, 200, "[{\"number\":9,\"state\":\"open\"}]");
+            } else if (path.equals("/repos/user/repo/commits")) {
+                respond(exchange, 200, "[{\"sha\":\"abc\",\"commit\":{\"committer\":{\"date\":\"2018-01-02T03:04:05Z\"}}}]");
+            } else {
+                respond(exchange, 404, "{\"message\":\"Not Found\"}");
+            }
+        });
+        server.start();
+
+        gitHub = new GitHubBuilder()
+                .withEndpoint("http://127.0.0.1:" + server.getAddress().getPort())
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void fetch_shouldUseConstantNumberOfRequests() throws IOException {
+        //Arrange
+        GitHubModel gitHubModel = new GitHubModel("https://github.com/user/repo", "user", "repo");
+
+        //Act
+        statsFetcher.fetch(gitHub, "token", gitHubModel);
+
+        //Assert
+        Assert.assertEquals(3, requests.size());
+        Assert.assertTrue(requests.get(1), requests.get(1).contains("state=open&per_page=1"));
+        Assert.assertTrue(requests.get(2), requests.get(2).contains("per_page=1"));
+        Assert.assertEquals(3, gitHubModel.getPullRequests());
+        Assert.assertEquals(4, gitHubModel.getOpenIssues());
+        Assert.assertEquals(ZonedDateTime.parse("2018-01-02T03:04:05Z")
+                .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime(), gitHubModel.getLastCommit());
+        Assert.assertNotNull(gitHubModel.getLastSuccess());
+    }
+
+    @Test
+    public void fetch_whenSingleOpenPullRequest_shouldCountWithoutLinkHeader() throws IOException {
+        //Arrange
+        server.removeContext("/");
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/repos/user/repo")) {
+                respond(exchange, 200, "{\"name\":\"repo\",\"full_name\":\"user/repo\",\"owner\":{\"login\":\"user\"},\"open_issues_count\":7}");
+            } else if (path.equals("/repos/user/repo/pulls")) {
+                respond(exchange, 200, "[{\"number\":9,\"state\":\"open\"}]");
+            } else {
+                respond(exchange, 200, "[]");
+            }
+        });
+        GitHubModel gitHubModel = new GitHubModel("https://github.com/user/repo", "user", "repo");
+
+        //Act
+        statsFetcher.fetch(gitHub, "token", gitHubModel);
+
+        //Assert
+        Assert.assertEquals(1, gitHubModel.getPullRequests());
+        Assert.assertEquals(6, gitHubModel.getOpenIssues());
+        Assert.assertNull(gitHubModel.getLastCommit());
+    }
+
+    @Test
+    public void fetch_whenPullRequestCountFails_shouldFailInsteadOfKeepingStaleCount() throws IOException {
+        //Arrange
+        server.removeContext("/");
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/repos/user/repo")) {
+                respond(exchange, 200, "{\"name\":\"repo\",\"full_name\":\"user/repo\",\"owner\":{\"login\":\"user\"},\"open_issues_count\":7}");
+            } else {
+                respond(exchange, 502, "{\"message\":\"Server Error\"}");
+            }
+        });
+        GitHubModel gitHubModel = new GitHubModel("https://github.com/user/repo", "user", "repo");
+        gitHubModel.setPullRequests(2);
+
+        //Act
+        try {
+            statsFetcher.fetch(gitHub, "token", gitHubModel);
+            Assert.fail("Expected the pull request count to fail.");
+        } catch (HttpException e) {
+            //Assert
+            Assert.assertEquals(502, e.getResponseCode());
+            Assert.assertEquals(2, gitHubModel.getPullRequests());
+            Assert.assertNull(gitHubModel.getLastSuccess());
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
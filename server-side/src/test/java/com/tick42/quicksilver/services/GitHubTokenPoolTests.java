@@ -0,0 +1,214 @@
+package com.tick42.quicksilver.services;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tick42.quicksilver.models.Settings;
+import com.tick42.quicksilver.repositories.base.SettingsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitHubTokenPoolTests {
+    private static final long resetSeconds = 2000;
+
+    @Mock
+    SettingsRepository settingsRepository;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private volatile boolean revoked = true;
+    private HttpServer server;
+    private GitHubConnector connector;
+    private GitHubTokenPool tokenPool;
+    private long now;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rate_limit", exchange -> {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            authorizations.add(authorization);
+
+            if (authorization.endsWith("first")) {
+                respond(exchange, 200, rateLimit(10));
+            } else if (authorization.endsWith("second") || !revoked) {
+                respond(exchange, 200, rateLimit(5));
+            } else {
+                respond(exchange, 401, "{\"message\":\"Bad credentials\"}");
+            }
+        });
+        server.createContext("/user", exchange -> {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization.endsWith("first") || authorization.endsWith("second") || !revoked) {
+                respond(exchange, 200, "{\"login\":\"admin\"}");
+            } else {
+                respond(exchange, 401, "{\"message\":\"Bad credentials\"}");
+            }
+        });
+        server.start();
+
+        connector = new GitHubConnector(new SimpleMeterRegistry());
+        connector.setDirectory(folder.newFolder().getPath());
+        connector.init();
+
+        tokenPool = new GitHubTokenPool(settingsRepository, connector, new SimpleMeterRegistry(), () -> now);
+        tokenPool.setEndpoint("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.stop(0);
+        connector.close();
+    }
+
+    @Test
+    public void acquire_shouldPickTokenWithMostHeadroom() {
+        //Arrange
+        when(settingsRepository.findAll()).thenReturn(Arrays.asList(settings(1, "first"), settings(2, "second")));
+        tokenPool.reload();
+
+        //Act
+        GitHubTokenPool.Token first = tokenPool.acquire(3);
+        GitHubTokenPool.Token second = tokenPool.acquire(3);
+        GitHubTokenPool.Token third = tokenPool.acquire(3);
+
+        //Assert
+        Assert.assertEquals(1, first.getSettingsId());
+        Assert.assertEquals(1, second.getSettingsId());
+        Assert.assertEquals(2, third.getSettingsId());
+        Assert.assertEquals(6, tokenPool.getRemaining());
+        Assert.assertEquals(15, tokenPool.getLimit());
+    }
+
+    @Test
+    public void acquire_whenAllTokensExhausted_shouldPauseUntilReset() {
+        //Arrange
+        when(settingsRepository.findAll()).thenReturn(Arrays.asList(settings(1, "first"), settings(2, "second")));
+        tokenPool.reload();
+        while (tokenPool.acquire(3) != null) ;
+
+        //Act
+        boolean exhausted = tokenPool.isExhausted(3);
+        now = resetSeconds * 1000;
+        GitHubTokenPool.Token token = tokenPool.acquire(3);
+
+        //Assert
+        Assert.assertTrue(exhausted);
+        Assert.assertNotNull(token);
+        Assert.assertFalse(tokenPool.isExhausted(3));
+    }
+
+    @Test
+    public void refund_whenRequestNeverSent_shouldRestoreReservedQuota() {
+        //Arrange
+        when(settingsRepository.findAll()).thenReturn(Arrays.asList(settings(1, "first")));
+        tokenPool.reload();
+        GitHubTokenPool.Token token = tokenPool.acquire(3);
+
+        //Act
+        tokenPool.refund(token, 3);
+
+        //Assert
+        Assert.assertEquals(10, tokenPool.getRemaining());
+    }
+
+    @Test
+    public void reload_whenTokenUnchanged_shouldKeepTrackedQuota() {
+        //Arrange
+        when(settingsRepository.findAll()).thenReturn(Arrays.asList(settings(1, "first"), settings(2, "second")));
+        tokenPool.reload();
+        tokenPool.acquire(3);
+
+        //Act
+        tokenPool.reload();
+
+        //Assert
+        Assert.assertEquals(2, authorizations.size());
+        Assert.assertEquals(12, tokenPool.getRemaining());
+    }
+
+    @Test
+    public void reload_whenTokenRejected_shouldStayOutUntilCredentialsPass() {
+        //Arrange
+        tokenPool.setInvalidRetry(1000);
+        when(settingsRepository.findAll()).thenReturn(Arrays.asList(settings(1, "revoked")));
+        tokenPool.reload();
+
+        //Act
+        GitHubTokenPool.Token skipped = tokenPool.acquire(1);
+        now = 1000;
+        GitHubTokenPool.Token unchecked = tokenPool.acquire(1);
+        tokenPool.revalidate();
+        GitHubTokenPool.Token rejected = tokenPool.acquire(1);
+        revoked = false;
+        now = 2000;
+        tokenPool.revalidate();
+        GitHubTokenPool.Token restored = tokenPool.acquire(1);
+
+        //Assert
+        Assert.assertNull(skipped);
+        Assert.assertNull(unchecked);
+        Assert.assertNull(rejected);
+        Assert.assertNotNull(restored);
+        Assert.assertTrue(restored.isValid());
+        Assert.assertEquals(4, tokenPool.getRemaining());
+    }
+
+    @Test
+    public void invalidate_shouldTakeTokenOutOfRotation() {
+        //Arrange
+        when(settingsRepository.findAll()).thenReturn(Arrays.asList(settings(1, "first")));
+        tokenPool.reload();
+        GitHubTokenPool.Token token = tokenPool.acquire(1);
+
+        //Act
+        tokenPool.invalidate(token);
+        now = resetSeconds * 1000;
+
+        //Assert
+        Assert.assertNull(tokenPool.acquire(1));
+        Assert.assertEquals(0, tokenPool.getLimit());
+        Assert.assertFalse(tokenPool.getTokens().get(0).isValid());
+    }
+
+    private static Settings settings(long id, String token) {
+        Settings settings = new Settings();
+        settings.setId(id);
+        settings.setUsername("admin");
+        settings.setToken(token);
+        return settings;
+    }
+
+    private static String rateLimit(int remaining) {
+        return "{\"resources\":{},\"rate\":{\"limit\":" + (remaining == 10 ? 10 : 5) + ",\"remaining\":" + remaining
+                + ",\"reset\":" + resetSeconds + "}}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.GitHubModel;
+import com.tick42.quicksilver.repositories.base.GitHubRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GitHubWebhookQueueTests {
+
+    @Mock
+    GitHubRepository gitHubRepository;
+
+    @Mock
+    GitHubHistoryStore historyStore;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    private GitHubWebhookQueue webhookQueue;
+
+    @Before
+    public void setUp() {
+        webhookQueue = new GitHubWebhookQueue(gitHubRepository, historyStore, new SimpleMeterRegistry(), transactionManager);
+        webhookQueue.setSecret("It's a Secret to Everybody");
+    }
+
+    @Test
+    public void verify_whenSignatureMatches_shouldAccept() {
+        //Arrange
+        byte[] payload = "Hello, World!".getBytes(StandardCharsets.UTF_8);
+        String signature = "sha256=757107ea0eb2509fc211221cce984b8a37570b6d7586c22c46f4379c8b043e17";
+
+        //Act
+        boolean valid = webhookQueue.verify(payload, signature);
+        boolean tampered = webhookQueue.verify("Hello, World?".getBytes(StandardCharsets.UTF_8), signature);
+
+        //Assert
+        Assert.assertTrue(valid);
+        Assert.assertFalse(tampered);
+    }
+
+    @Test
+    public void verify_whenSecretMissing_shouldRejectEverything() {
+        //Arrange
+        webhookQueue.setSecret("");
+
+        //Act
+        boolean valid = webhookQueue.verify(new byte[0], "sha256=");
+
+        //Assert
+        Assert.assertFalse(valid);
+    }
+
+    @Test
+    public void submit_whenDeliveryRepeated_shouldDropDuplicate() throws IOException {
+        //Act
+        GitHubWebhookQueue.Result first = webhookQueue.submit("1", "issues", issues("opened"));
+        GitHubWebhookQueue.Result second = webhookQueue.submit("1", "issues", issues("opened"));
+
+        //Assert
+        Assert.assertEquals(GitHubWebhookQueue.Result.ACCEPTED, first);
+        Assert.assertEquals(GitHubWebhookQueue.Result.DUPLICATE, second);
+        Assert.assertEquals(1, webhookQueue.getSize());
+    }
+
+    @Test
+    public void submit_whenQueueFull_shouldRejectNewRepositories() throws IOException {
+        //Arrange
+        webhookQueue.setCapacity(1);
+        webhookQueue.submit("1", "issues", issues("opened"));
+
+        //Act
+        GitHubWebhookQueue.Result sameRepository = webhookQueue.submit("2", "pull_request", pullRequest("opened"));
+        GitHubWebhookQueue.Result otherRepository = webhookQueue.submit("3", "issues",
+                json("{\"action\":\"opened\",\"repository\":{\"full_name\":\"user/other\"}}"));
+        GitHubWebhookQueue.Result retried = webhookQueue.submit("3", "issues",
+                json("{\"action\":\"opened\",\"repository\":{\"full_name\":\"user/other\"}}"));
+
+        //Assert
+        Assert.assertEquals(GitHubWebhookQueue.Result.ACCEPTED, sameRepository);
+        Assert.assertEquals(GitHubWebhookQueue.Result.FULL, otherRepository);
+        Assert.assertEquals(GitHubWebhookQueue.Result.FULL, retried);
+    }
+
+    @Test
+    public void submit_whenPushToOtherBranch_shouldIgnore() throws IOException {
+        //Act
+        GitHubWebhookQueue.Result result = webhookQueue.submit("1", "push", push("refs/heads/feature"));
+
+        //Assert
+        Assert.assertEquals(GitHubWebhookQueue.Result.IGNORED, result);
+        Assert.assertEquals(0, webhookQueue.getSize());
+    }
+
+    @Test
+    public void flush_shouldApplyCoalescedEventsToMatchingRepository() throws IOException {
+        //Arrange
+        GitHubModel gitHubModel = new GitHubModel("https://github.com/user/repo", "user", "repo");
+        gitHubModel.setPullRequests(2);
+        gitHubModel.setOpenIssues(0);
+        when(gitHubRepository.findByUserAndRepo("user", "repo")).thenReturn(Collections.singletonList(gitHubModel));
+
+        webhookQueue.submit("1", "pull_request", pullRequest("opened"));
+        webhookQueue.submit("2", "pull_request", pullRequest("opened"));
+        webhookQueue.submit("3", "pull_request", pullRequest("closed"));
+        webhookQueue.submit("4", "issues", issues("closed"));
+        webhookQueue.submit("5", "push", push("refs/heads/master"));
+
+        //Act
+        webhookQueue.flush();
+
+        //Assert
+        verify(gitHubRepository, times(1)).findByUserAndRepo("user", "repo");
+        verify(gitHubRepository, times(1)).saveAll(Collections.singletonList(gitHubModel));
+        verify(historyStore).record(gitHubModel);
+        Assert.assertEquals(3, gitHubModel.getPullRequests());
+        Assert.assertEquals(0, gitHubModel.getOpenIssues());
+        Assert.assertEquals(ZonedDateTime.parse("2018-09-12T10:21:40+02:00")
+                .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime(), gitHubModel.getLastCommit());
+        Assert.assertNull(gitHubModel.getLastSuccess());
+        Assert.assertNotNull(gitHubModel.getLastWebhook());
+        Assert.assertEquals(0, webhookQueue.getSize());
+    }
+
+    @Test
+    public void flush_whenTransactionRollsBackAtCommit_shouldKeepEvents() throws IOException {
+        //Arrange
+        GitHubModel gitHubModel = new GitHubModel("https://github.com/user/repo", "user", "repo");
+        when(gitHubRepository.findByUserAndRepo("user", "repo")).thenReturn(Collections.singletonList(gitHubModel));
+        webhookQueue.submit("1", "pull_request", pullRequest("opened"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            webhookQueue.flush();
+            Assert.assertEquals(0, webhookQueue.getSize());
+
+            //Act
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        //Assert
+        Assert.assertEquals(1, webhookQueue.getSize());
+    }
+
+    @Test
+    public void close_shouldFlushInsideTransaction() throws IOException {
+        //Arrange
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(gitHubRepository.findByUserAndRepo("user", "repo")).thenReturn(Collections.emptyList());
+        webhookQueue.submit("1", "pull_request", pullRequest("opened"));
+
+        //Act
+        webhookQueue.close();
+
+        //Assert
+        verify(transactionManager).commit(any());
+        Assert.assertEquals(0, webhookQueue.getSize());
+    }
+
+    private static byte[] issues(String action) {
+        return json("{\"action\":\"" + action + "\",\"issue\":{\"state\":\"open\"},\"repository\":{\"full_name\":\"user/repo\"}}");
+    }
+
+    private static byte[] pullRequest(String action) {
+        return json("{\"action\":\"" + action + "\",\"repository\":{\"full_name\":\"user/repo\"}}");
+    }
+
+    private static byte[] push(String ref) {
+        return json("{\"ref\":\"" + ref + "\",\"head_commit\":{\"timestamp\":\"2018-09-12T10:21:40+02:00\"}," +
+                "\"repository\":{\"full_name\":\"user/repo\",\"default_branch\":\"master\"}}");
+    }
+
+    private static byte[] json(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
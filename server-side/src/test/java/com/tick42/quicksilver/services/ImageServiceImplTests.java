@@ -0,0 +1,133 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.exceptions.FileFormatException;
+import com.tick42.quicksilver.exceptions.InvalidParameterException;
+import com.tick42.quicksilver.models.File;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Base64;
+
+public class ImageServiceImplTests {
+    private ImageServiceImpl imageService;
+    private File image;
+    private Resource source;
+
+    @Before
+    public void setUp() throws IOException {
+        imageService = new ImageServiceImpl();
+
+        image = new File("1image.png", 0, "image/png");
+        image.setId(Long.MAX_VALUE);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 200, BufferedImage.TYPE_INT_ARGB), "png", outputStream);
+        source = new ByteArrayResource(outputStream.toByteArray());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (String fit : new String[]{"contain", "cover", "fill"}) {
+            Files.deleteIfExists(Paths.get("./uploads/variants", Long.MAX_VALUE + "_128x_" + fit + ".png"));
+            Files.deleteIfExists(Paths.get("./uploads/variants", Long.MAX_VALUE + "_128x128_" + fit + ".png"));
+        }
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void getVariant_whenSizeNotAllowed_shouldThrow() {
+        //Act
+        imageService.getVariant(image, () -> source, 100, null, null);
+    }
+
+    @Test(expected = InvalidParameterException.class)
+    public void getVariant_whenFitInvalid_shouldThrow() {
+        //Act
+        imageService.getVariant(image, () -> source, 128, 128, "stretch");
+    }
+
+    @Test(expected = FileFormatException.class)
+    public void getVariant_whenFileNotImage_shouldThrow() {
+        //Arrange
+        File file = new File("1.txt", 0, "text/plain");
+
+        //Act
+        imageService.getVariant(file, () -> source, 128, null, null);
+    }
+
+    @Test
+    public void getVariant_withWidthOnly_shouldKeepAspectRatio() throws IOException {
+        //Act
+        Resource variant = imageService.getVariant(image, () -> source, 128, null, null);
+
+        //Assert
+        BufferedImage resized = read(variant);
+        Assert.assertEquals(128, resized.getWidth());
+        Assert.assertEquals(64, resized.getHeight());
+    }
+
+    @Test
+    public void getVariant_withCoverFit_shouldFillRequestedSize() throws IOException {
+        //Act
+        Resource variant = imageService.getVariant(image, () -> source, 128, 128, "cover");
+
+        //Assert
+        BufferedImage resized = read(variant);
+        Assert.assertEquals(128, resized.getWidth());
+        Assert.assertEquals(128, resized.getHeight());
+    }
+
+    @Test
+    public void getVariant_whenRequestedTwice_shouldReuseStoredVariant() throws IOException {
+        //Arrange
+        Resource first = imageService.getVariant(image, () -> source, 128, 128, "contain");
+        long modified = first.lastModified();
+
+        //Act
+        Resource second = imageService.getVariant(image, () -> {
+            throw new AssertionError("The original shouldn't be opened for a stored variant.");
+        }, 128, 128, "contain");
+
+        //Assert
+        Assert.assertEquals(first.getFile(), second.getFile());
+        Assert.assertEquals(modified, second.lastModified());
+    }
+
+    @Test
+    public void generatePlaceholder_whenImageValid_shouldReturnSmallJpegDataUri() throws IOException {
+        //Act
+        String placeholder = imageService.generatePlaceholder(source.getInputStream());
+
+        //Assert
+        Assert.assertTrue(placeholder.startsWith("data:image/jpeg;base64,"));
+        byte[] jpeg = Base64.getDecoder().decode(placeholder.substring("data:image/jpeg;base64,".length()));
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(jpeg));
+        Assert.assertEquals(16, decoded.getWidth());
+        Assert.assertEquals(8, decoded.getHeight());
+    }
+
+    @Test
+    public void generatePlaceholder_whenNotImage_shouldReturnNull() {
+        //Act
+        String placeholder = imageService.generatePlaceholder(new ByteArrayInputStream("text".getBytes()));
+
+        //Assert
+        Assert.assertNull(placeholder);
+    }
+
+    private BufferedImage read(Resource resource) throws IOException {
+        try (InputStream inputStream = resource.getInputStream()) {
+            return ImageIO.read(inputStream);
+        }
+    }
+}
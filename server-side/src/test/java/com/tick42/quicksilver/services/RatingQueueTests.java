@@ -0,0 +1,193 @@
+package com.tick42.quicksilver.services;
+
+import com.tick42.quicksilver.models.RatingHistogram;
+import com.tick42.quicksilver.repositories.base.ExtensionRepository;
+import com.tick42.quicksilver.repositories.base.RatingRepository;
+import com.tick42.quicksilver.repositories.base.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RatingQueueTests {
+
+    @Mock
+    private ExtensionRepository extensionRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RatingRepository ratingRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RatingQueue ratingQueue;
+
+    @Before
+    public void setUp() {
+        ratingQueue = new RatingQueue(extensionRepository, userRepository, ratingRepository, new SimpleMeterRegistry(),
+                transactionManager);
+    }
+
+    @Test
+    public void add_whenSameExtension_shouldCoalesce() {
+        //Act
+        ratingQueue.add(1, 3, RatingHistogram.of(5, 1));
+        RatingQueue.Delta delta = ratingQueue.add(1, 3, new RatingHistogram(0, 0, 1, 0, -1));
+
+        //Assert
+        Assert.assertEquals(1, ratingQueue.getSize());
+        Assert.assertEquals(RatingHistogram.of(3, 1), delta.getHistogram());
+    }
+
+    @Test
+    public void flush_shouldUpdateEachExtensionAndOwnerOnce() {
+        //Arrange
+        ratingQueue.add(1, 3, RatingHistogram.of(5, 1));
+        ratingQueue.add(1, 3, RatingHistogram.of(4, 1));
+        ratingQueue.add(2, 3, RatingHistogram.of(2, 1));
+
+        when(extensionRepository.updateRating(anyLong(), any(RatingHistogram.class))).thenReturn(1);
+
+        //Act
+        ratingQueue.flush();
+
+        //Assert
+        verify(extensionRepository).updateRating(1, new RatingHistogram(0, 0, 0, 1, 1));
+        verify(extensionRepository).updateRating(2, RatingHistogram.of(2, 1));
+        verify(userRepository).updateRating(3, 11, 3);
+        verify(extensionRepository).updateScores(argThat(ids -> new HashSet<>(ids).equals(new HashSet<>(Arrays.asList(1L, 2L)))), eq(3.0), eq(10.0));
+        Assert.assertEquals(0, ratingQueue.getSize());
+    }
+
+    @Test
+    public void flush_whenExtensionDeleted_shouldSkipOwner() {
+        //Arrange
+        ratingQueue.add(1, 3, RatingHistogram.of(5, 1));
+
+        when(extensionRepository.updateRating(1, RatingHistogram.of(5, 1))).thenReturn(0);
+
+        //Act
+        ratingQueue.flush();
+
+        //Assert
+        verify(userRepository, never()).updateRating(anyLong(), anyLong(), anyInt());
+        verify(extensionRepository, never()).updateScores(any(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    public void rebuild_shouldRecomputeFromRatings() {
+        //Arrange
+        ratingQueue.add(1, 3, RatingHistogram.of(5, 1));
+
+        when(ratingRepository.streamHistograms()).thenReturn(Stream.of(
+                new Object[]{1L, 3L, 4, 2L},
+                new Object[]{1L, 3L, 5, 1L},
+                new Object[]{2L, 3L, 1, 1L}));
+
+        //Act
+        ratingQueue.rebuild();
+
+        //Assert
+        verify(extensionRepository).resetRatings();
+        verify(userRepository).resetRatings();
+        verify(extensionRepository).updateRating(1, new RatingHistogram(0, 0, 0, 2, 1));
+        verify(extensionRepository).updateRating(2, RatingHistogram.of(1, 1));
+        verify(userRepository).updateRating(3, 14, 4);
+        verify(extensionRepository).updateAllScores(3, 10);
+        Assert.assertEquals(0, ratingQueue.getSize());
+    }
+
+    @Test
+    public void rebuild_whenRatingInFlight_shouldWaitForItsDelta() throws InterruptedException {
+        //Arrange
+        when(ratingRepository.streamHistograms()).thenReturn(Stream.<Object[]>of(new Object[]{1L, 3L, 5, 1L}));
+
+        Lock lock = ratingQueue.getRatingLock();
+        lock.lock();
+        Thread rebuild = new Thread(ratingQueue::rebuild);
+
+        //Act
+        rebuild.start();
+        rebuild.join(200);
+        verify(extensionRepository, never()).resetRatings();
+
+        ratingQueue.add(1, 3, RatingHistogram.of(5, 1));
+        lock.unlock();
+        rebuild.join();
+
+        //Assert
+        verify(extensionRepository).updateRating(1, RatingHistogram.of(5, 1));
+        Assert.assertEquals(0, ratingQueue.getSize());
+    }
+
+    @Test
+    public void flush_whenUpdateFails_shouldKeepDeltas() {
+        //Arrange
+        ratingQueue.add(1, 3, RatingHistogram.of(5, 1));
+
+        when(extensionRepository.updateRating(1, RatingHistogram.of(5, 1))).thenThrow(new IllegalStateException());
+
+        //Act
+        try {
+            ratingQueue.flush();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            //Assert
+            Assert.assertEquals(RatingHistogram.of(5, 1), ratingQueue.getPending(1).getHistogram());
+        }
+    }
+
+    @Test
+    public void flush_whenTransactionRollsBackAtCommit_shouldKeepDeltas() {
+        //Arrange
+        ratingQueue.add(1, 3, RatingHistogram.of(5, 1));
+        when(extensionRepository.updateRating(anyLong(), any(RatingHistogram.class))).thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ratingQueue.flush();
+            Assert.assertEquals(0, ratingQueue.getSize());
+
+            //Act
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        //Assert
+        Assert.assertEquals(RatingHistogram.of(5, 1), ratingQueue.getPending(1).getHistogram());
+    }
+
+    @Test
+    public void close_shouldFlushInsideTransaction() {
+        //Arrange
+        ratingQueue.add(1, 3, RatingHistogram.of(5, 1));
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(extensionRepository.updateRating(anyLong(), any(RatingHistogram.class))).thenReturn(1);
+
+        //Act
+        ratingQueue.close();
+
+        //Assert
+        verify(transactionManager).commit(any());
+        verify(userRepository).updateRating(3, 5, 1);
+    }
+}
@@ -2,34 +2,64 @@ package com.tick42.quicksilver.services;
 
 import com.tick42.quicksilver.exceptions.InvalidRatingException;
 import com.tick42.quicksilver.models.Extension;
-import com.tick42.quicksilver.models.Rating;
+import com.tick42.quicksilver.models.LongIntMap;
+import com.tick42.quicksilver.models.RatingHistogram;
 import com.tick42.quicksilver.models.UserModel;
-import com.tick42.quicksilver.repositories.base.ExtensionRepository;
 import com.tick42.quicksilver.repositories.base.RatingRepository;
 import com.tick42.quicksilver.repositories.base.UserRepository;
+import com.tick42.quicksilver.services.base.RatingService;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
-import java.util.Optional;
-import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
 
 @RunWith(MockitoJUnitRunner.class)
 public class RatingServiceImplTests {
 
     @Mock
-    private ExtensionRepository extensionRepository;
+    private UserRepository userRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private RatingQueue ratingQueue;
 
     @Mock RatingRepository ratingRepository;
 
     @InjectMocks
     private RatingServiceImpl ratingService;
 
+    @Test
+    public void userRatingForExtension_whenRated_shouldReturnRating() {
+        //Arrange
+        when(ratingRepository.findRatingByUser(1, 5)).thenReturn(4);
+
+        //Act
+        int rating = ratingService.userRatingForExtension(1, 5);
+
+        //Assert
+        Assert.assertEquals(4, rating);
+    }
+
+    @Test
+    public void userRatingForExtension_whenNotRated_shouldReturnNoRating() {
+        //Arrange
+        when(ratingRepository.findRatingByUser(1, 5)).thenReturn(null);
+
+        //Act
+        int rating = ratingService.userRatingForExtension(1, 5);
+
+        //Assert
+        Assert.assertEquals(RatingService.NO_RATING, rating);
+    }
+
     @Test(expected = InvalidRatingException.class)
     public void rateExtension_withInvalidInput_ShouldThrow() {
         //Arrange
@@ -44,37 +74,86 @@ public class RatingServiceImplTests {
         ratingService.rate(extension, rating, userId);
     }
 
+    @Test(expected = InvalidRatingException.class)
+    public void rateExtension_withZeroRating_ShouldThrow() {
+        //Arrange
+        Extension extension = new Extension();
+        extension.setId(1);
+
+        //Act
+        ratingService.rate(extension, 0, 5);
+    }
+
     @Test()
-    public void rateExtension_WhenUserHasCurrentRattingForExtension_ShouldReturnChanged() {
+    public void rateExtension_WhenUserHasCurrentRattingForExtension_ShouldQueueDifference() {
         //Arrange
+        UserModel userModel = new UserModel();
+        userModel.setId(3);
+
         Extension extension = new Extension();
         extension.setId(1);
-        extension.setRating(2);
+        extension.setHistogram(new RatingHistogram(0, 1, 1, 0, 0));
         extension.setTimesRated(2);
-        int currentUserRatingForExtension = 2;
-        Rating newRating = new Rating(3, 1, 1);
+        extension.setOwner(userModel);
+
+        when(ratingQueue.getRatingLock()).thenReturn(new ReentrantLock());
+        when(ratingRepository.findRatingForUpdate(1, 1)).thenReturn(2);
 
         //Act
-        extension = ratingService.newExtensionRating( currentUserRatingForExtension, newRating, extension);
+        Extension rated = ratingService.rate(extension, 3, 1);
 
         //Assert
-        Assert.assertEquals(2.50, extension.getRating(), 0);
+        verify(ratingRepository).upsert(1, 1, 3);
+        verify(ratingQueue).add(1, 3, new RatingHistogram(0, -1, 1, 0, 0));
+        Assert.assertArrayEquals(new int[]{0, 0, 2, 0, 0}, rated.getHistogram().getCounts());
+        Assert.assertEquals(3, rated.getRating(), 0);
     }
 
     @Test
-    public void rateExtension_WhenUserNoRatingForExtension_ShouldReturnChanged() {
+    public void rateExtension_WhenUserNoRatingForExtension_ShouldQueueRating() {
         //Arrange
+        UserModel userModel = new UserModel();
+        userModel.setId(3);
+
         Extension extension = new Extension();
-        extension.setRating(2);
-        extension.setTimesRated(2);
-        int currentUserRatingForExtension = 0;
-        Rating newRating = new Rating(5, 1, 1);
+        extension.setId(1);
+        extension.setHistogram(new RatingHistogram(0, 1, 1, 1, 0));
+        extension.setTimesRated(3);
+        extension.setOwner(userModel);
+
+        when(ratingQueue.getRatingLock()).thenReturn(new ReentrantLock());
+        when(ratingRepository.findRatingForUpdate(1, 1)).thenReturn(null);
+
+        //Act
+        Extension rated = ratingService.rate(extension, 5, 1);
+
+        //Assert
+        verify(ratingQueue).add(1, 3, RatingHistogram.of(5, 1));
+        Assert.assertEquals(3.5, rated.getRating(), 0);
+    }
+
+    @Test
+    public void rateExtension_WhenRatingsPending_ShouldIncludeThemInResult() {
+        //Arrange
+        UserModel userModel = new UserModel();
+        userModel.setId(3);
+
+        Extension extension = new Extension();
+        extension.setId(1);
+        extension.setHistogram(RatingHistogram.of(4, 1));
+        extension.setTimesRated(1);
+        extension.setOwner(userModel);
+
+        when(ratingQueue.getRatingLock()).thenReturn(new ReentrantLock());
+        when(ratingRepository.findRatingForUpdate(1, 1)).thenReturn(null);
+        when(ratingQueue.getPending(1)).thenReturn(new RatingQueue.Delta(3, RatingHistogram.of(2, 1)));
 
         //Act
-        extension = ratingService.newExtensionRating(currentUserRatingForExtension, newRating, extension);
+        Extension rated = ratingService.rate(extension, 3, 1);
 
         //Assert
-        Assert.assertEquals(3, extension.getRating(), 0);
+        Assert.assertEquals(3, rated.getTimesRated());
+        Assert.assertEquals(3, rated.getRating(), 0);
     }
 
     @Test(expected = NullPointerException.class)
@@ -83,7 +162,6 @@ public class RatingServiceImplTests {
         Extension extension = new Extension();
         extension.setId(2);
 
-        when(extensionRepository.findById(2L)).thenReturn(null);
         //Act
         ratingService.updateRatingOnExtensionDelete(extension);
 
@@ -94,67 +172,85 @@ public class RatingServiceImplTests {
 
         //Arrange
         UserModel userModel = new UserModel();
-        userModel.setRating(4);
-        userModel.setExtensionsRated(2);
+        userModel.setId(3);
 
         Extension extension = new Extension();
         extension.setId(1);
-        extension.setRating(4);
+        extension.setHistogram(new RatingHistogram(0, 0, 0, 2, 0));
         extension.setTimesRated(2);
         extension.setOwner(userModel);
 
-        when(extensionRepository.findById(1L)).thenReturn(Optional.of(extension));
         //Act
         ratingService.updateRatingOnExtensionDelete(extension);
-        //Assert
-
-        Assert.assertEquals(4, userModel.getRating(),0);
 
+        //Assert
+        verify(userRepository).updateRating(3, -8, -2);
     }
 
     @Test
-    public void userRatingOnExtensionDelete_whenUserHasOnlyOneExtension_ShouldReturnZero(){
+    public void UserRatingOnExtensionDelete_WhenExtensionRatingIsZero_ShouldReturnSame(){
 
         //Arrange
         UserModel userModel = new UserModel();
-        userModel.setRating(4);
-        userModel.setExtensionsRated(1);
+        userModel.setId(3);
 
         Extension extension = new Extension();
         extension.setId(1);
-        extension.setRating(4);
-        extension.setTimesRated(2);
         extension.setOwner(userModel);
 
-        when(extensionRepository.findById(1L)).thenReturn(Optional.of(extension));
         //Act
         ratingService.updateRatingOnExtensionDelete(extension);
+
         //Assert
+        verify(userRepository, never()).updateRating(anyLong(), anyLong(), anyInt());
+    }
 
-        Assert.assertEquals(0, userModel.getRating(),0);
-        Assert.assertEquals(0, userModel.getExtensionsRated(),0);
+    @Test
+    public void userRatingsForExtensions_shouldMapRatedExtensionsAndDefaultToZero(){
+        //Arrange
+        List<Long> ids = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 40; id++) {
+            ids.add(id);
+            if (id % 2 == 0) {
+                rows.add(new Object[]{id, (int) (id % 5) + 1});
+            }
+        }
+        when(ratingRepository.findRatingsByUser(7, ids)).thenReturn(rows);
+
+        //Act
+        LongIntMap ratings = ratingService.userRatingsForExtensions(ids, 7);
+
+        //Assert
+        Assert.assertEquals(20, ratings.size());
+        Assert.assertEquals(3, ratings.get(2));
+        Assert.assertEquals(1, ratings.get(40));
+        Assert.assertEquals(0, ratings.get(3));
+        Assert.assertEquals(0, ratings.get(41));
     }
 
     @Test
-    public void UserRatingOnExtensionDelete_WhenExtensionRatingIsZero_ShouldReturnSame(){
+    public void userRatingsForExtensions_withNoIds_shouldNotQuery(){
+        //Act
+        LongIntMap ratings = ratingService.userRatingsForExtensions(Collections.emptyList(), 7);
 
+        //Assert
+        Assert.assertEquals(0, ratings.size());
+        verifyZeroInteractions(ratingRepository);
+    }
+
+    @Test
+    public void getRating_whenSumAndCountSet_shouldReturnAverage(){
         //Arrange
         UserModel userModel = new UserModel();
-        userModel.setRating(4);
-        userModel.setExtensionsRated(2);
+        userModel.setRatingSum(7);
+        userModel.setTimesRated(2);
 
-        Extension extension = new Extension();
-        extension.setId(1);
-        extension.setRating(0);
-        extension.setTimesRated(0);
-        extension.setOwner(userModel);
-
-        when(extensionRepository.findById(1L)).thenReturn(Optional.of(extension));
         //Act
-        ratingService.updateRatingOnExtensionDelete(extension);
-        //Assert
+        double rating = userModel.getRating();
 
-        Assert.assertEquals(4, userModel.getRating(),0);
-        Assert.assertEquals(2, userModel.getExtensionsRated(),0);
+        //Assert
+        Assert.assertEquals(3.5, rating, 0);
+        Assert.assertEquals(0, new UserModel().getRating(), 0);
     }
 }